@@ -0,0 +1,162 @@
+package dev.nokee.elements.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Reads the entries of a zip archive into a source element without extracting the archive, the inverse of {@link ZipElement}.
+ * Entries of a {@link ZipFile} are read on first access of their content.
+ * Entries of a stream can only be read in order so their bytes are kept, they are decoded on first access of their content.
+ */
+final class ArchiveReader {
+	private final String prefix;
+	private final PathFilter filter;
+
+	private ArchiveReader(String prefix, PathFilter filter) {
+		this.prefix = prefix.isEmpty() || prefix.endsWith("/") ? prefix : prefix + "/";
+		this.filter = filter;
+	}
+
+	public static SourceElement read(ZipInputStream inStream, List<String> includes, List<String> excludes) {
+		return new ArchiveReader("", new PathFilter(includes, excludes)).read(inStream);
+	}
+
+	public static SourceElement read(ZipFile zipFile, List<String> includes, List<String> excludes) {
+		return new ArchiveReader("", new PathFilter(includes, excludes)).read(zipFile);
+	}
+
+	public static SourceElement readClasspath(ClassLoader classLoader, String prefix, List<String> includes, List<String> excludes) {
+		URL url = classLoader.getResource(prefix);
+		if (url == null) {
+			throw new IllegalArgumentException(String.format("Directory '%s' was not found on the classpath.", prefix));
+		}
+
+		try {
+			if (url.getProtocol().equals("file")) {
+				return DirectoryReader.read(Paths.get(url.toURI()), includes, excludes);
+			}
+
+			URLConnection connection = url.openConnection();
+			if (!(connection instanceof JarURLConnection)) {
+				throw new IllegalArgumentException(String.format("Directory '%s' is not in a directory or a jar on the classpath, found '%s'.", prefix, url));
+			}
+			connection.setUseCaches(false); // the jar is closed once read, a cached jar may be shared with the class loader
+			try (JarFile jarFile = ((JarURLConnection) connection).getJarFile()) {
+				return new ArchiveReader(((JarURLConnection) connection).getEntryName(), new PathFilter(includes, excludes)).readEagerly(jarFile);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(String.format("Unable to read '%s' from the classpath.", prefix), e);
+		} catch (URISyntaxException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	private SourceElement read(ZipInputStream inStream) {
+		List<SourceFile> result = new ArrayList<>();
+		try {
+			ZipEntry entry;
+			while ((entry = inStream.getNextEntry()) != null) {
+				String path = pathOf(entry);
+				if (path != null) {
+					result.add(decodeLater(path, toByteArray(inStream)));
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read zip archive.", e);
+		}
+		return toElement(result);
+	}
+
+	private SourceElement read(ZipFile zipFile) {
+		List<SourceFile> result = new ArrayList<>();
+		Enumeration<? extends ZipEntry> entries = zipFile.entries();
+		while (entries.hasMoreElements()) {
+			ZipEntry entry = entries.nextElement();
+			String path = pathOf(entry);
+			if (path != null) {
+				result.add(SourceFile.lazyFrom(Paths.get(path), () -> {
+					try (InputStream inStream = zipFile.getInputStream(entry)) {
+						return new String(toByteArray(inStream), StandardCharsets.UTF_8);
+					}
+				}));
+			}
+		}
+		return toElement(result);
+	}
+
+	private SourceElement readEagerly(ZipFile zipFile) throws IOException {
+		List<SourceFile> result = new ArrayList<>();
+		Enumeration<? extends ZipEntry> entries = zipFile.entries();
+		while (entries.hasMoreElements()) {
+			ZipEntry entry = entries.nextElement();
+			String path = pathOf(entry);
+			if (path != null) {
+				try (InputStream inStream = zipFile.getInputStream(entry)) {
+					result.add(decodeLater(path, toByteArray(inStream)));
+				}
+			}
+		}
+		return toElement(result);
+	}
+
+	// Returns the path relative to the prefix or null if the entry is not selected
+	private String pathOf(ZipEntry entry) {
+		String name = entry.getName();
+		if (entry.isDirectory() || !name.startsWith(prefix)) {
+			return null;
+		}
+
+		String path = name.substring(prefix.length());
+		for (String segment : path.split("/")) {
+			if (segment.equals("..")) {
+				throw new IllegalArgumentException(String.format("Archive entry '%s' is outside of the archive.", name));
+			}
+		}
+		if (path.startsWith("/")) {
+			throw new IllegalArgumentException(String.format("Archive entry '%s' is outside of the archive.", name));
+		}
+
+		for (int idx = path.indexOf('/'); idx != -1; idx = path.indexOf('/', idx + 1)) {
+			if (filter.isExcludedDirectory(path.substring(0, idx))) {
+				return null;
+			}
+		}
+		return filter.isIncluded(path) ? path : null;
+	}
+
+	private static SourceFile decodeLater(String path, byte[] bytes) {
+		return SourceFile.lazyFrom(Paths.get(path), () -> new String(bytes, StandardCharsets.UTF_8));
+	}
+
+	private static byte[] toByteArray(InputStream inStream) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int length;
+		while ((length = inStream.read(buffer)) != -1) {
+			result.write(buffer, 0, length);
+		}
+		return result.toByteArray();
+	}
+
+	// Sorted by path like a directory, archives may list their entries in any order
+	private static SourceElement toElement(List<SourceFile> files) {
+		files.sort(Comparator.comparing(SourceFile::getFilePath));
+		return SourceElement.ofFiles(files);
+	}
+}
@@ -0,0 +1,250 @@
+package dev.nokee.elements.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+
+/**
+ * Represent the incremental changes of many elements planned as a single set of file system operations.
+ * The changes are collapsed to their net effect on each path, i.e. an add followed by a modify writes the file once, a delete followed by an add of the same content does nothing.
+ * A deleted file re-added at another path with the same content is moved instead of rewritten.
+ * When requested, i.e. to revert changes, directories left empty by the removed files are deleted, up to the location of the changes.
+ * Conflicting changes are reported before touching the file system, the remaining operations touch disjoint paths and run concurrently.
+ * Files are deleted, then moved, then written so removed files make room for the new files.
+ *
+ * <p>Only the built-in transforms are planned, other transforms are applied as-is in order.
+ */
+final class ChangePlan {
+	private final List<Step> steps = new ArrayList<>();
+	private final boolean deleteEmptyDirectories;
+	private Changes current = null;
+
+	public ChangePlan() {
+		this(false);
+	}
+
+	public ChangePlan(boolean deleteEmptyDirectories) {
+		this.deleteEmptyDirectories = deleteEmptyDirectories;
+	}
+
+	public ChangePlan add(Path location, IncrementalElement.Transform transform) {
+		if (transform instanceof IncrementalElement.FileTransform) {
+			if (current == null) {
+				current = new Changes(deleteEmptyDirectories);
+				steps.add(current);
+			}
+			current.add(location, transform);
+		} else {
+			current = null; // cannot plan across opaque transforms
+			steps.add(executor -> transform.applyChangesTo(location));
+		}
+		return this;
+	}
+
+	public void execute(Executor executor) {
+		List<Step> plannedSteps = new ArrayList<>(steps.size());
+		for (Step step : steps) {
+			plannedSteps.add(step instanceof Changes ? ((Changes) step).plan() : step);
+		}
+
+		for (Step step : plannedSteps) {
+			step.execute(executor);
+		}
+	}
+
+	private interface Step {
+		void execute(Executor executor);
+	}
+
+	private static final class Changes implements Step {
+		private final List<Path> locations = new ArrayList<>();
+		private final List<IncrementalElement.Transform> transforms = new ArrayList<>();
+		private final boolean deleteEmptyDirectories;
+
+		private Changes(boolean deleteEmptyDirectories) {
+			this.deleteEmptyDirectories = deleteEmptyDirectories;
+		}
+
+		public void add(Path location, IncrementalElement.Transform transform) {
+			locations.add(location);
+			transforms.add(transform);
+		}
+
+		public Operations plan() {
+			Map<Path, SourceFile> initialFiles = new HashMap<>();
+			Map<Path, Path> locationsOfInitialFiles = new HashMap<>();
+			Map<Path, SourceFile> finalFiles = new LinkedHashMap<>(); // null for removed files
+			Set<String> conflicts = new TreeSet<>();
+			for (int i = 0; i < transforms.size(); i++) {
+				Set<Path> consumedPaths = new HashSet<>();
+				for (SourceFile file : transforms.get(i).getBeforeFiles()) {
+					Path path = pathOf(locations.get(i), file);
+					if (!finalFiles.containsKey(path)) {
+						initialFiles.put(path, file);
+						locationsOfInitialFiles.put(path, locations.get(i).normalize());
+					} else if (finalFiles.get(path) == null) {
+						conflicts.add(String.format("'%s' was already removed by another change", path));
+					}
+					finalFiles.put(path, null);
+					consumedPaths.add(path);
+				}
+
+				for (SourceFile file : transforms.get(i).getAfterFiles()) {
+					Path path = pathOf(locations.get(i), file);
+					if (finalFiles.get(path) != null && !consumedPaths.contains(path)) {
+						conflicts.add(String.format("'%s' is written by multiple changes", path));
+					}
+					finalFiles.put(path, file);
+				}
+			}
+
+			if (!conflicts.isEmpty()) {
+				throw new IllegalStateException("Conflicting incremental changes:" + System.lineSeparator() + "  - " + String.join(System.lineSeparator() + "  - ", conflicts));
+			}
+
+			Map<Digest, Deque<Path>> removedFilesByDigest = new HashMap<>();
+			for (Map.Entry<Path, SourceFile> entry : finalFiles.entrySet()) {
+				if (entry.getValue() == null && initialFiles.containsKey(entry.getKey())) { // files added then removed were never written
+					removedFilesByDigest.computeIfAbsent(initialFiles.get(entry.getKey()).getDigest(), it -> new ArrayDeque<>()).add(entry.getKey());
+				}
+			}
+
+			Operations result = new Operations(deleteEmptyDirectories);
+			for (Map.Entry<Path, SourceFile> entry : finalFiles.entrySet()) {
+				Path path = entry.getKey();
+				SourceFile file = entry.getValue();
+				SourceFile initialFile = initialFiles.get(path);
+				if (file == null) {
+					continue;
+				} else if (initialFile == null) {
+					Deque<Path> candidates = removedFilesByDigest.get(file.getDigest());
+					if (candidates != null && !candidates.isEmpty()) {
+						Path source = candidates.poll();
+						result.move(source, path, locationsOfInitialFiles.get(source));
+					} else {
+						result.write(path, file);
+					}
+				} else if (!initialFile.getDigest().equals(file.getDigest())) {
+					result.write(path, file);
+				}
+			}
+
+			for (Deque<Path> paths : removedFilesByDigest.values()) {
+				for (Path path : paths) {
+					result.delete(path, locationsOfInitialFiles.get(path));
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public void execute(Executor executor) {
+			plan().execute(executor);
+		}
+
+		private static Path pathOf(Path location, SourceFile file) {
+			return location.resolve(file.getPath()).resolve(file.getName()).normalize();
+		}
+	}
+
+	private static final class Operations implements Step {
+		private final Set<Path> directories = new TreeSet<>();
+		private final Map<Path, Path> vacatedDirectories = new TreeMap<>(Comparator.reverseOrder()); // location by directory, deepest first
+		private final ParallelWrites deletes = new ParallelWrites();
+		private final ParallelWrites moves = new ParallelWrites();
+		private final ParallelWrites writes = new ParallelWrites();
+		private final boolean deleteEmptyDirectories;
+
+		private Operations(boolean deleteEmptyDirectories) {
+			this.deleteEmptyDirectories = deleteEmptyDirectories;
+		}
+
+		public void write(Path path, SourceFile file) {
+			directories.add(path.getParent());
+			writes.add(path, file);
+		}
+
+		public void move(Path source, Path destination, Path location) {
+			vacatedDirectories.put(source.getParent(), location);
+			moves.add(() -> {
+				if (!Files.exists(source)) {
+					throw new IllegalStateException(String.format("File at '%s' does not exist.", source));
+				}
+
+				try {
+					Files.createDirectories(destination.getParent());
+					Files.move(source, destination);
+				} catch (IOException e) {
+					throw new UncheckedIOException(String.format("Unable to move file '%s' to '%s'.", source, destination), e);
+				}
+			});
+		}
+
+		public void delete(Path path, Path location) {
+			vacatedDirectories.put(path.getParent(), location);
+			deletes.add(() -> {
+				if (!Files.exists(path)) {
+					throw new IllegalStateException(String.format("File at '%s' does not exist.", path));
+				}
+
+				try {
+					Files.delete(path);
+				} catch (IOException e) {
+					throw new UncheckedIOException(String.format("Unable to delete file at '%s'.", path), e);
+				}
+			});
+		}
+
+		// Removed files make room for the other files first, i.e. a deleted file 'foo' and an added file 'foo/bar.c'
+		@Override
+		public void execute(Executor executor) {
+			deletes.execute(executor);
+			deleteVacatedDirectories();
+			moves.execute(executor);
+			deleteVacatedDirectories();
+
+			try {
+				for (Path directory : directories) {
+					Files.createDirectories(directory);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			writes.execute(executor);
+		}
+
+		private void deleteVacatedDirectories() {
+			if (!deleteEmptyDirectories) {
+				return;
+			}
+
+			for (Map.Entry<Path, Path> entry : vacatedDirectories.entrySet()) {
+				for (Path directory = entry.getKey(); directory.startsWith(entry.getValue()) && !directory.equals(entry.getValue()); directory = directory.getParent()) {
+					try {
+						Files.delete(directory);
+					} catch (DirectoryNotEmptyException | NoSuchFileException e) {
+						break; // still used or already deleted
+					} catch (IOException e) {
+						throw new UncheckedIOException(String.format("Unable to delete directory at '%s'.", directory), e);
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package dev.nokee.elements.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represent the union of multiple source elements.
+ * The flattened source files are computed once, on first access, and shared with every caller.
+ */
+final class CompositeSourceElement extends SourceElement {
+	private final List<SourceElement> elements;
+	private volatile List<SourceFile> files;
+
+	CompositeSourceElement(List<SourceElement> elements) {
+		this.elements = Collections.unmodifiableList(new ArrayList<>(elements));
+	}
+
+	@Override
+	public List<SourceFile> getFiles() {
+		List<SourceFile> result = files;
+		if (result == null) {
+			List<SourceFile> allFiles = new ArrayList<>();
+			for (SourceElement element : elements) {
+				allFiles.addAll(element.getFiles());
+			}
+			result = Collections.unmodifiableList(allFiles);
+			files = result;
+		}
+		return result;
+	}
+
+	@Override
+	public void accept(Visitor visitor) {
+		for (SourceElement element : elements) {
+			element.accept(visitor);
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package dev.nokee.elements.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Represent a content-addressed store where each distinct file content is written once, keyed by its {@link Digest}.
+ * Elements are materialized by hard-linking the stored content into the target directory.
+ * When linking is not possible, i.e. the target directory is on another file store, the content is copied instead.
+ *
+ * <p>Source files are never written through a link: writing over a linked file, i.e. when applying incremental changes, first breaks the link.
+ */
+public final class ContentStore {
+	private final Path location;
+	private final Set<Digest> knownContents = ConcurrentHashMap.newKeySet();
+
+	private ContentStore(Path location) {
+		this.location = location;
+	}
+
+	/**
+	 * Returns a content store at the specified location, the directory is created as needed.
+	 *
+	 * @param location  the store directory
+	 * @return a content store
+	 */
+	public static ContentStore at(Path location) {
+		return new ContentStore(location);
+	}
+
+	/**
+	 * {@return the location of this store}
+	 */
+	public Path getLocation() {
+		return location;
+	}
+
+	/**
+	 * Write the specified element to the directory by linking the stored contents.
+	 *
+	 * @param element  the element to write
+	 * @param directory  the directory to write the element
+	 * @return a element representing the written files
+	 */
+	public FileSystemElement writeToDirectory(SourceElement element, Path directory) {
+		return writeToDirectory(WritePlan.of(element), directory);
+	}
+
+	/**
+	 * Write the specified element to the directory by linking the stored contents.
+	 *
+	 * @param element  the element to write, i.e. the result of {@link LayoutElement#applyTo(Element)}
+	 * @param directory  the directory to write the element
+	 * @return a element representing the written files
+	 */
+	public FileSystemElement writeToDirectory(FileSystemElement element, Path directory) {
+		return writeToDirectory(WritePlan.of(element), directory);
+	}
+
+	/**
+	 * Write the specified plan to the directory by linking the stored contents.
+	 *
+	 * @param plan  the plan to write
+	 * @param directory  the directory to write the plan
+	 * @return a element representing the written files
+	 */
+	public FileSystemElement writeToDirectory(WritePlan plan, Path directory) {
+		plan.createDirectories(directory);
+		boolean canLink = true;
+		for (WritePlan.Entry entry : plan.getEntries()) {
+			Path target = directory.resolve(entry.getPath());
+			Path content = store(entry.getFile());
+			try {
+				Files.deleteIfExists(target);
+				if (canLink) {
+					try {
+						Files.createLink(target, content);
+						continue;
+					} catch (UnsupportedOperationException | FileSystemException e) {
+						canLink = false; // i.e. different file store, copy the remaining files
+					}
+				}
+				Files.copy(content, target);
+			} catch (IOException e) {
+				throw new UncheckedIOException(String.format("Unable to create source file at '%s'.", target), e);
+			}
+		}
+		return plan.writeResult(directory);
+	}
+
+	private Path store(SourceFile file) {
+		Digest digest = file.getDigest();
+		String key = digest.toString();
+		Path result = location.resolve(key.substring(0, 2)).resolve(key.substring(2));
+		if (knownContents.contains(digest) || Files.exists(result)) {
+			knownContents.add(digest);
+			return result;
+		}
+
+		try {
+			Files.createDirectories(result.getParent());
+			Path temporaryFile = Files.createTempFile(result.getParent(), key.substring(2), ".tmp");
+			try {
+				Files.write(temporaryFile, file.getBytes());
+				Files.move(temporaryFile, result, StandardCopyOption.ATOMIC_MOVE);
+			} catch (FileAlreadyExistsException e) {
+				// stored concurrently, the content is the same
+			} finally {
+				Files.deleteIfExists(temporaryFile);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(String.format("Unable to store content of '%s' in '%s'.", file.getFilePath(), location), e);
+		}
+		knownContents.add(digest);
+		return result;
+	}
+
+	/**
+	 * Deletes the specified file if it shares its content with other links, i.e. from a content store.
+	 * When the link count is unknown, the file is deleted to be safe.
+	 *
+	 * @param file  the file to be overwritten
+	 */
+	static void unlinkIfShared(Path file) throws IOException {
+		try {
+			if ((Integer) Files.getAttribute(file, "unix:nlink", LinkOption.NOFOLLOW_LINKS) <= 1) {
+				return;
+			}
+		} catch (UnsupportedOperationException | IllegalArgumentException e) {
+			// link count unavailable on this file system
+		}
+		Files.deleteIfExists(file);
+	}
+}
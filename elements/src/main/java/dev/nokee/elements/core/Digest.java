@@ -0,0 +1,168 @@
+package dev.nokee.elements.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Represent a SHA-256 digest of some content.
+ * Digests are suitable as keys for caching and deduplicating content.
+ */
+public final class Digest {
+	private static final String ALGORITHM = "SHA-256";
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+	private final byte[] bytes;
+	private final int hashCode;
+
+	private Digest(byte[] bytes) {
+		this.bytes = bytes;
+		this.hashCode = (bytes[0] & 0xff) << 24 | (bytes[1] & 0xff) << 16 | (bytes[2] & 0xff) << 8 | (bytes[3] & 0xff);
+	}
+
+	/**
+	 * Returns the digest of the specified bytes.
+	 *
+	 * @param content  the bytes to digest
+	 * @return the digest of the content
+	 */
+	public static Digest of(byte[] content) {
+		MessageDigest digest = newMessageDigest();
+		return new Digest(digest.digest(content));
+	}
+
+	/**
+	 * Returns the digest of the specified file content.
+	 *
+	 * @param file  the file to digest
+	 * @return the digest of the file content
+	 * @throws IOException if the file cannot be read
+	 */
+	public static Digest of(Path file) throws IOException {
+		MessageDigest digest = newMessageDigest();
+		byte[] buffer = new byte[8192];
+		try (InputStream inStream = Files.newInputStream(file)) {
+			int length;
+			while ((length = inStream.read(buffer)) != -1) {
+				digest.update(buffer, 0, length);
+			}
+		}
+		return new Digest(digest.digest());
+	}
+
+	// Completes the specified message digest, i.e. after streaming content into it
+	static Digest of(MessageDigest digest) {
+		return new Digest(digest.digest());
+	}
+
+	/**
+	 * Returns a builder to combine multiple values into a single digest, i.e. a tree digest.
+	 *
+	 * @return a new digest builder
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	static MessageDigest newMessageDigest() {
+		try {
+			return MessageDigest.getInstance(ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e); // every Java platform supports SHA-256
+		}
+	}
+
+	/**
+	 * {@return a copy of the digest bytes}
+	 */
+	public byte[] toByteArray() {
+		return bytes.clone();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+		Digest that = (Digest) o;
+		return hashCode == that.hashCode && Arrays.equals(bytes, that.bytes);
+	}
+
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+
+	/**
+	 * {@return the hexadecimal representation of this digest}
+	 */
+	@Override
+	public String toString() {
+		char[] result = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			result[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+			result[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+		}
+		return new String(result);
+	}
+
+	/**
+	 * Builds a digest from a sequence of values, see {@link Digest#builder()}.
+	 * The same values added in the same order always build the same digest.
+	 */
+	public static final class Builder {
+		private final MessageDigest digest = newMessageDigest();
+
+		private Builder() {}
+
+		/**
+		 * Adds the specified string, encoded as UTF-8 and prefixed by its length.
+		 *
+		 * @param value  the string to add
+		 * @return this builder
+		 */
+		public Builder putString(String value) {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			putInt(bytes.length); // length prefix to keep the values unambiguous
+			digest.update(bytes);
+			return this;
+		}
+
+		/**
+		 * Adds the bytes of the specified digest, i.e. the digest of a nested element.
+		 *
+		 * @param value  the digest to add
+		 * @return this builder
+		 */
+		public Builder putDigest(Digest value) {
+			digest.update(value.bytes);
+			return this;
+		}
+
+		/**
+		 * Adds the specified integer as four big-endian bytes.
+		 *
+		 * @param value  the integer to add
+		 * @return this builder
+		 */
+		public Builder putInt(int value) {
+			digest.update((byte) (value >>> 24));
+			digest.update((byte) (value >>> 16));
+			digest.update((byte) (value >>> 8));
+			digest.update((byte) value);
+			return this;
+		}
+
+		/**
+		 * {@return the digest of the values added so far, the builder should not be used afterwards}
+		 */
+		public Digest build() {
+			return new Digest(digest.digest());
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package dev.nokee.elements.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Reads the files of a directory into a source element, the inverse of {@link WritePlan#writeToDirectory(Path)}.
+ * Excluded directories are pruned during the walk so their files are never visited.
+ * The files are read concurrently and decoded as UTF-8.
+ * Binary files, i.e. containing a {@literal NUL} byte or malformed UTF-8, are skipped instead of being decoded lossily,
+ * so a directory containing a {@literal gradle-wrapper.jar} or images reads back as its text files only.
+ */
+final class DirectoryReader {
+	private final Path directory;
+	private final PathFilter filter;
+
+	private DirectoryReader(Path directory, PathFilter filter) {
+		this.directory = directory;
+		this.filter = filter;
+	}
+
+	public static SourceElement read(Path directory, List<String> includes, List<String> excludes) {
+		DirectoryReader reader = new DirectoryReader(directory, new PathFilter(includes, excludes));
+		List<String> paths = reader.walk();
+
+		SourceFile[] files = new SourceFile[paths.size()];
+		IntStream.range(0, files.length).parallel().forEach(i -> files[i] = reader.read(paths.get(i)));
+
+		SourceElement result = SourceElement.ofFiles(Arrays.stream(files).filter(Objects::nonNull).collect(Collectors.toList()));
+		result.getPathIndex(); // frozen, the index is ready for lookups
+		return result;
+	}
+
+	// Returns the included files sorted by path for a deterministic element
+	private List<String> walk() {
+		List<String> result = new ArrayList<>();
+		try {
+			Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+					String path = relativePathOf(dir);
+					if (!path.isEmpty() && filter.isExcludedDirectory(path)) {
+						return FileVisitResult.SKIP_SUBTREE;
+					}
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+					String path = relativePathOf(file);
+					if (attrs.isRegularFile() && filter.isIncluded(path)) {
+						result.add(path);
+					}
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (IOException e) {
+			throw new UncheckedIOException(String.format("Unable to read directory at '%s'.", directory), e);
+		}
+		result.sort(Comparator.naturalOrder());
+		return result;
+	}
+
+	private String relativePathOf(Path path) {
+		StringBuilder result = new StringBuilder();
+		for (Path name : directory.relativize(path)) {
+			if (result.length() > 0) {
+				result.append('/');
+			}
+			result.append(name);
+		}
+		return result.toString();
+	}
+
+	// Returns null for binary files, see class documentation
+	private SourceFile read(String path) {
+		int idx = path.lastIndexOf('/');
+		Path file = directory.resolve(path);
+		String content;
+		try {
+			content = contentOf(Files.readAllBytes(file));
+		} catch (IOException e) {
+			throw new UncheckedIOException(String.format("Unable to read file at '%s'.", file), e);
+		}
+		if (content == null) {
+			return null;
+		}
+		return new SourceFile(idx == -1 ? "" : path.substring(0, idx), path.substring(idx + 1), content);
+	}
+
+	private static String contentOf(byte[] bytes) {
+		for (byte b : bytes) {
+			if (b == 0) {
+				return null;
+			}
+		}
+		try {
+			return StandardCharsets.UTF_8.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPORT)
+				.onUnmappableCharacter(CodingErrorAction.REPORT)
+				.decode(ByteBuffer.wrap(bytes))
+				.toString();
+		} catch (CharacterCodingException e) {
+			return null;
+		}
+	}
+}
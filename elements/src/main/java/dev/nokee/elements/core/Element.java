@@ -6,6 +6,35 @@ import java.util.Arrays;
  * Represents an logical element.
  */
 public abstract class Element {
+	private volatile Digest digest;
+
+	/**
+	 * Returns the digest of this element.
+	 * The digest is a tree digest built from the digests of the source files, their paths and the structure of this element.
+	 * It is computed once, elements are expected to be immutable.
+	 *
+	 * @return the digest of this element
+	 */
+	public final Digest getDigest() {
+		Digest result = digest;
+		if (result == null) {
+			result = computeDigest();
+			digest = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Computes the digest of this element.
+	 * Implementations should combine the {@link #getDigest() digest} of the nested elements so each node is only computed once.
+	 * By default, the digest is computed from the files of this element laid out by {@link GradleLayoutElement}.
+	 *
+	 * @return the digest of this element
+	 */
+	protected Digest computeDigest() {
+		return Digest.builder().putString("element").putDigest(new GradleLayoutElement().applyTo(this).getDigest()).build();
+	}
+
 	/**
 	 * Returns a source element that contains the given files.
 	 *
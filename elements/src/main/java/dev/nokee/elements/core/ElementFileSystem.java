@@ -0,0 +1,230 @@
+package dev.nokee.elements.core;
+
+import java.io.IOException;
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.FileAttributeView;
+import java.nio.file.attribute.FileStoreAttributeView;
+import java.nio.file.attribute.UserPrincipalLookupService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Represent a read-only file system view of a {@link WritePlan}.
+ * Directory listings and reads are served from the in-memory source files, nothing is written to disk.
+ */
+final class ElementFileSystem extends FileSystem {
+	private final ElementFileSystemProvider provider;
+	private final String id;
+	private final ElementPath root;
+	private final Map<String, SourceFile> files = new HashMap<>();
+	private final Map<String, SortedSet<String>> directories = new HashMap<>();
+	private volatile boolean open = true;
+
+	ElementFileSystem(ElementFileSystemProvider provider, String id, WritePlan plan) {
+		this.provider = provider;
+		this.id = id;
+		this.root = new ElementPath(this, "/");
+
+		directories.put("/", new TreeSet<>());
+		for (Map.Entry<String, SourceFile> entry : plan.getArchiveEntries().entrySet()) {
+			String path = "/" + entry.getKey();
+			if (entry.getValue() == null) {
+				path = path.substring(0, path.length() - 1);
+				directories.put(path, new TreeSet<>());
+			} else {
+				files.put(path, entry.getValue());
+			}
+			int idx = path.lastIndexOf('/');
+			directories.get(idx == 0 ? "/" : path.substring(0, idx)).add(path.substring(idx + 1)); // parent-first
+		}
+	}
+
+	String getId() {
+		return id;
+	}
+
+	ElementPath getRoot() {
+		return root;
+	}
+
+	// Returns the file at the specified path or null if the path does not denote a file
+	SourceFile findFile(Path path) {
+		ensureOpen();
+		return files.get(keyOf(path));
+	}
+
+	// Returns the names of the directory entries or null if the path does not denote a directory
+	SortedSet<String> findDirectory(Path path) {
+		ensureOpen();
+		SortedSet<String> result = directories.get(keyOf(path));
+		return result == null ? null : Collections.unmodifiableSortedSet(result);
+	}
+
+	boolean exists(Path path) {
+		return findFile(path) != null || findDirectory(path) != null;
+	}
+
+	private static String keyOf(Path path) {
+		return path.toAbsolutePath().normalize().toString();
+	}
+
+	void ensureOpen() {
+		if (!open) {
+			throw new ClosedFileSystemException();
+		}
+	}
+
+	@Override
+	public ElementFileSystemProvider provider() {
+		return provider;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (open) {
+			open = false;
+			provider.remove(this);
+		}
+	}
+
+	@Override
+	public boolean isOpen() {
+		return open;
+	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+
+	@Override
+	public String getSeparator() {
+		return "/";
+	}
+
+	@Override
+	public Iterable<Path> getRootDirectories() {
+		return Collections.singletonList(root);
+	}
+
+	@Override
+	public Iterable<FileStore> getFileStores() {
+		return Collections.singletonList(new ElementFileStore());
+	}
+
+	@Override
+	public Set<String> supportedFileAttributeViews() {
+		return Collections.singleton("basic");
+	}
+
+	@Override
+	public ElementPath getPath(String first, String... more) {
+		StringBuilder result = new StringBuilder(first);
+		for (String it : more) {
+			if (!it.isEmpty()) {
+				if (result.length() > 0) {
+					result.append('/');
+				}
+				result.append(it);
+			}
+		}
+		return new ElementPath(this, result.toString());
+	}
+
+	@Override
+	public PathMatcher getPathMatcher(String syntaxAndPattern) {
+		int idx = syntaxAndPattern.indexOf(':');
+		if (idx <= 0) {
+			throw new IllegalArgumentException(String.format("Invalid path matcher '%s', expecting 'syntax:pattern'.", syntaxAndPattern));
+		}
+		String syntax = syntaxAndPattern.substring(0, idx);
+		String pattern = syntaxAndPattern.substring(idx + 1);
+
+		final Pattern regex;
+		if (syntax.equalsIgnoreCase("glob")) {
+			regex = GlobPattern.compile(pattern);
+		} else if (syntax.equalsIgnoreCase("regex")) {
+			regex = Pattern.compile(pattern);
+		} else {
+			throw new UnsupportedOperationException(String.format("Syntax '%s' is not recognized.", syntax));
+		}
+		return path -> regex.matcher(path.toString()).matches();
+	}
+
+	@Override
+	public UserPrincipalLookupService getUserPrincipalLookupService() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public WatchService newWatchService() {
+		throw new UnsupportedOperationException("Element file systems are read-only and cannot be watched.");
+	}
+
+	final class ElementFileStore extends FileStore {
+		@Override
+		public String name() {
+			return id;
+		}
+
+		@Override
+		public String type() {
+			return ElementFileSystemProvider.SCHEME;
+		}
+
+		@Override
+		public boolean isReadOnly() {
+			return true;
+		}
+
+		@Override
+		public long getTotalSpace() {
+			long result = 0;
+			for (SourceFile file : files.values()) {
+				result += file.getBytes().length;
+			}
+			return result;
+		}
+
+		@Override
+		public long getUsableSpace() {
+			return 0;
+		}
+
+		@Override
+		public long getUnallocatedSpace() {
+			return 0;
+		}
+
+		@Override
+		public boolean supportsFileAttributeView(Class<? extends FileAttributeView> type) {
+			return type == BasicFileAttributeView.class;
+		}
+
+		@Override
+		public boolean supportsFileAttributeView(String name) {
+			return name.equals("basic");
+		}
+
+		@Override
+		public <V extends FileStoreAttributeView> V getFileStoreAttributeView(Class<V> type) {
+			return null;
+		}
+
+		@Override
+		public Object getAttribute(String attribute) {
+			throw new UnsupportedOperationException(String.format("Attribute '%s' is not supported.", attribute));
+		}
+	}
+}
@@ -0,0 +1,398 @@
+package dev.nokee.elements.core;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Provides read-only file systems backed by elements, see {@link SourceElement#asFileSystem()}.
+ * The provider is not installed, file systems are only created from elements and can be looked up by URI while open.
+ */
+final class ElementFileSystemProvider extends FileSystemProvider {
+	static final String SCHEME = "element";
+	static final ElementFileSystemProvider INSTANCE = new ElementFileSystemProvider();
+	private static final FileTime CONSTANT_TIME_FOR_ELEMENT_FILES = FileTime.fromMillis(0);
+	private final ConcurrentMap<String, ElementFileSystem> fileSystems = new ConcurrentHashMap<>();
+
+	private ElementFileSystemProvider() {}
+
+	FileSystem newFileSystem(WritePlan plan) {
+		ElementFileSystem result = new ElementFileSystem(this, UUID.randomUUID().toString(), plan);
+		fileSystems.put(result.getId(), result);
+		return result;
+	}
+
+	void remove(ElementFileSystem fileSystem) {
+		fileSystems.remove(fileSystem.getId());
+	}
+
+	@Override
+	public String getScheme() {
+		return SCHEME;
+	}
+
+	@Override
+	public FileSystem newFileSystem(URI uri, Map<String, ?> env) {
+		throw new UnsupportedOperationException("Element file systems can only be created from an element.");
+	}
+
+	@Override
+	public FileSystem getFileSystem(URI uri) {
+		return fileSystemOf(uri);
+	}
+
+	@Override
+	public Path getPath(URI uri) {
+		String path = uri.getSchemeSpecificPart();
+		return fileSystemOf(uri).getPath(path.substring(path.indexOf('!') + 1));
+	}
+
+	// URI are formatted as element:<id>!<absolute-path>
+	private ElementFileSystem fileSystemOf(URI uri) {
+		if (!SCHEME.equalsIgnoreCase(uri.getScheme())) {
+			throw new IllegalArgumentException(String.format("URI scheme is not '%s'.", SCHEME));
+		}
+		String path = uri.getSchemeSpecificPart();
+		int idx = path.indexOf('!');
+		ElementFileSystem result = fileSystems.get(idx == -1 ? path : path.substring(0, idx));
+		if (result == null) {
+			throw new FileSystemNotFoundException(uri.toString());
+		}
+		return result;
+	}
+
+	@Override
+	public SeekableByteChannel newByteChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs) throws IOException {
+		for (OpenOption option : options) {
+			if (option == StandardOpenOption.WRITE || option == StandardOpenOption.APPEND || option == StandardOpenOption.CREATE || option == StandardOpenOption.CREATE_NEW || option == StandardOpenOption.DELETE_ON_CLOSE || option == StandardOpenOption.TRUNCATE_EXISTING) {
+				throw new ReadOnlyFileSystemException();
+			}
+		}
+		return new ReadOnlyByteChannel(fileOf(path).getBytes());
+	}
+
+	@Override
+	public DirectoryStream<Path> newDirectoryStream(Path dir, DirectoryStream.Filter<? super Path> filter) throws IOException {
+		SortedSet<String> names = fileSystemOf(dir).findDirectory(dir);
+		if (names == null) {
+			if (fileSystemOf(dir).findFile(dir) != null) {
+				throw new NotDirectoryException(dir.toString());
+			}
+			throw new NoSuchFileException(dir.toString());
+		}
+
+		return new DirectoryStream<Path>() {
+			private boolean iterated = false;
+
+			@Override
+			public Iterator<Path> iterator() {
+				if (iterated) {
+					throw new IllegalStateException("Iterator already obtained");
+				}
+				iterated = true;
+				return names.stream().map(dir::resolve).filter(it -> {
+					try {
+						return filter.accept(it);
+					} catch (IOException e) {
+						throw new DirectoryIteratorException(e);
+					}
+				}).iterator();
+			}
+
+			@Override
+			public void close() {}
+		};
+	}
+
+	@Override
+	public void createDirectory(Path dir, FileAttribute<?>... attrs) {
+		throw new ReadOnlyFileSystemException();
+	}
+
+	@Override
+	public void delete(Path path) {
+		throw new ReadOnlyFileSystemException();
+	}
+
+	@Override
+	public void copy(Path source, Path target, CopyOption... options) {
+		throw new ReadOnlyFileSystemException(); // copying out of the element goes through the streams
+	}
+
+	@Override
+	public void move(Path source, Path target, CopyOption... options) {
+		throw new ReadOnlyFileSystemException();
+	}
+
+	@Override
+	public boolean isSameFile(Path path, Path path2) {
+		return path.equals(path2) || (path2 instanceof ElementPath && path.toAbsolutePath().normalize().equals(path2.toAbsolutePath().normalize()));
+	}
+
+	@Override
+	public boolean isHidden(Path path) {
+		return false;
+	}
+
+	@Override
+	public FileStore getFileStore(Path path) {
+		return fileSystemOf(path).new ElementFileStore();
+	}
+
+	@Override
+	public void checkAccess(Path path, AccessMode... modes) throws IOException {
+		if (!fileSystemOf(path).exists(path)) {
+			throw new NoSuchFileException(path.toString());
+		}
+		for (AccessMode mode : modes) {
+			if (mode != AccessMode.READ) {
+				throw new AccessDeniedException(path.toString());
+			}
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <V extends FileAttributeView> V getFileAttributeView(Path path, Class<V> type, LinkOption... options) {
+		if (type != BasicFileAttributeView.class) {
+			return null;
+		}
+		return (V) new BasicFileAttributeView() {
+			@Override
+			public String name() {
+				return "basic";
+			}
+
+			@Override
+			public BasicFileAttributes readAttributes() throws IOException {
+				return ElementFileSystemProvider.this.readAttributes(path, BasicFileAttributes.class);
+			}
+
+			@Override
+			public void setTimes(FileTime lastModifiedTime, FileTime lastAccessTime, FileTime createTime) {
+				throw new ReadOnlyFileSystemException();
+			}
+		};
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <A extends BasicFileAttributes> A readAttributes(Path path, Class<A> type, LinkOption... options) throws IOException {
+		if (type != BasicFileAttributes.class) {
+			throw new UnsupportedOperationException(String.format("Attributes of type '%s' are not supported.", type.getName()));
+		}
+
+		SourceFile file = fileSystemOf(path).findFile(path);
+		if (file != null) {
+			return (A) new ElementFileAttributes(file.getBytes().length, false);
+		} else if (fileSystemOf(path).findDirectory(path) != null) {
+			return (A) new ElementFileAttributes(0, true);
+		}
+		throw new NoSuchFileException(path.toString());
+	}
+
+	@Override
+	public Map<String, Object> readAttributes(Path path, String attributes, LinkOption... options) throws IOException {
+		String view = "basic";
+		int idx = attributes.indexOf(':');
+		if (idx != -1) {
+			view = attributes.substring(0, idx);
+			attributes = attributes.substring(idx + 1);
+		}
+		if (!view.equals("basic")) {
+			throw new UnsupportedOperationException(String.format("View '%s' is not supported.", view));
+		}
+
+		BasicFileAttributes values = readAttributes(path, BasicFileAttributes.class);
+		Map<String, Object> all = new LinkedHashMap<>();
+		all.put("lastModifiedTime", values.lastModifiedTime());
+		all.put("lastAccessTime", values.lastAccessTime());
+		all.put("creationTime", values.creationTime());
+		all.put("size", values.size());
+		all.put("isRegularFile", values.isRegularFile());
+		all.put("isDirectory", values.isDirectory());
+		all.put("isSymbolicLink", values.isSymbolicLink());
+		all.put("isOther", values.isOther());
+		all.put("fileKey", values.fileKey());
+
+		Map<String, Object> result = new LinkedHashMap<>();
+		for (String name : attributes.split(",")) {
+			if (name.equals("*")) {
+				result.putAll(all);
+			} else if (all.containsKey(name)) {
+				result.put(name, all.get(name));
+			} else {
+				throw new IllegalArgumentException(String.format("Attribute '%s' is not recognized.", name));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void setAttribute(Path path, String attribute, Object value, LinkOption... options) {
+		throw new ReadOnlyFileSystemException();
+	}
+
+	private SourceFile fileOf(Path path) throws IOException {
+		ElementFileSystem fileSystem = fileSystemOf(path);
+		SourceFile result = fileSystem.findFile(path);
+		if (result == null) {
+			if (fileSystem.findDirectory(path) != null) {
+				throw new FileSystemException(path.toString(), null, "Is a directory");
+			}
+			throw new NoSuchFileException(path.toString());
+		}
+		return result;
+	}
+
+	private static ElementFileSystem fileSystemOf(Path path) {
+		if (!(path instanceof ElementPath)) {
+			throw new ProviderMismatchException();
+		}
+		return ((ElementPath) path).getFileSystem();
+	}
+
+	private static final class ElementFileAttributes implements BasicFileAttributes {
+		private final long size;
+		private final boolean directory;
+
+		private ElementFileAttributes(long size, boolean directory) {
+			this.size = size;
+			this.directory = directory;
+		}
+
+		@Override
+		public FileTime lastModifiedTime() {
+			return CONSTANT_TIME_FOR_ELEMENT_FILES;
+		}
+
+		@Override
+		public FileTime lastAccessTime() {
+			return CONSTANT_TIME_FOR_ELEMENT_FILES;
+		}
+
+		@Override
+		public FileTime creationTime() {
+			return CONSTANT_TIME_FOR_ELEMENT_FILES;
+		}
+
+		@Override
+		public boolean isRegularFile() {
+			return !directory;
+		}
+
+		@Override
+		public boolean isDirectory() {
+			return directory;
+		}
+
+		@Override
+		public boolean isSymbolicLink() {
+			return false;
+		}
+
+		@Override
+		public boolean isOther() {
+			return false;
+		}
+
+		@Override
+		public long size() {
+			return size;
+		}
+
+		@Override
+		public Object fileKey() {
+			return null;
+		}
+	}
+
+	// The bytes are shared with the source file and never modified
+	private static final class ReadOnlyByteChannel implements SeekableByteChannel {
+		private final byte[] bytes;
+		private long position = 0;
+		private boolean open = true;
+
+		private ReadOnlyByteChannel(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		@Override
+		public synchronized int read(ByteBuffer dst) throws IOException {
+			ensureOpen();
+			if (position >= bytes.length) {
+				return -1;
+			}
+			int length = (int) Math.min(dst.remaining(), bytes.length - position);
+			dst.put(bytes, (int) position, length);
+			position += length;
+			return length;
+		}
+
+		@Override
+		public int write(ByteBuffer src) {
+			throw new NonWritableChannelException();
+		}
+
+		@Override
+		public synchronized long position() throws IOException {
+			ensureOpen();
+			return position;
+		}
+
+		@Override
+		public synchronized SeekableByteChannel position(long newPosition) throws IOException {
+			ensureOpen();
+			if (newPosition < 0) {
+				throw new IllegalArgumentException();
+			}
+			position = newPosition; // reading past the end returns -1
+			return this;
+		}
+
+		@Override
+		public long size() throws IOException {
+			ensureOpen();
+			return bytes.length;
+		}
+
+		@Override
+		public SeekableByteChannel truncate(long size) {
+			throw new NonWritableChannelException();
+		}
+
+		@Override
+		public synchronized boolean isOpen() {
+			return open;
+		}
+
+		@Override
+		public synchronized void close() {
+			open = false;
+		}
+
+		private void ensureOpen() throws ClosedChannelException {
+			if (!open) {
+				throw new ClosedChannelException();
+			}
+		}
+	}
+}
@@ -0,0 +1,286 @@
+package dev.nokee.elements.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.ProviderMismatchException;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Represent a path in an {@link ElementFileSystem}, using {@literal /} as separator.
+ * The working directory of the file system is its root.
+ */
+final class ElementPath implements Path {
+	private final ElementFileSystem fileSystem;
+	private final boolean absolute;
+	private final String[] names; // empty for the root and the empty path
+
+	ElementPath(ElementFileSystem fileSystem, String path) {
+		this.fileSystem = fileSystem;
+		this.absolute = path.startsWith("/");
+		this.names = Arrays.stream(path.split("/")).filter(it -> !it.isEmpty()).toArray(String[]::new);
+	}
+
+	private ElementPath(ElementFileSystem fileSystem, boolean absolute, List<String> names) {
+		this.fileSystem = fileSystem;
+		this.absolute = absolute;
+		this.names = names.toArray(new String[0]);
+	}
+
+	@Override
+	public ElementFileSystem getFileSystem() {
+		return fileSystem;
+	}
+
+	@Override
+	public boolean isAbsolute() {
+		return absolute;
+	}
+
+	@Override
+	public Path getRoot() {
+		return absolute ? fileSystem.getRoot() : null;
+	}
+
+	@Override
+	public Path getFileName() {
+		if (names.length == 0) {
+			return absolute ? null : this;
+		} else if (names.length == 1 && !absolute) {
+			return this;
+		}
+		return new ElementPath(fileSystem, names[names.length - 1]);
+	}
+
+	@Override
+	public Path getParent() {
+		if (names.length == 0 || (names.length == 1 && !absolute)) {
+			return null;
+		}
+		return new ElementPath(fileSystem, absolute, Arrays.asList(names).subList(0, names.length - 1));
+	}
+
+	@Override
+	public int getNameCount() {
+		return names.length == 0 && !absolute ? 1 : names.length; // the empty path has one empty name
+	}
+
+	@Override
+	public Path getName(int index) {
+		return subpath(index, index + 1);
+	}
+
+	@Override
+	public Path subpath(int beginIndex, int endIndex) {
+		if (beginIndex < 0 || beginIndex >= getNameCount() || endIndex > getNameCount() || beginIndex >= endIndex) {
+			throw new IllegalArgumentException();
+		}
+		if (names.length == 0) {
+			return this; // empty path
+		}
+		return new ElementPath(fileSystem, false, Arrays.asList(names).subList(beginIndex, endIndex));
+	}
+
+	@Override
+	public boolean startsWith(Path other) {
+		ElementPath that = toElementPath(other);
+		if (absolute != that.absolute || that.names.length > names.length || (that.isEmpty() && !isEmpty())) {
+			return false;
+		}
+		for (int i = 0; i < that.names.length; i++) {
+			if (!names[i].equals(that.names[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean startsWith(String other) {
+		return startsWith(fileSystem.getPath(other));
+	}
+
+	@Override
+	public boolean endsWith(Path other) {
+		ElementPath that = toElementPath(other);
+		if (that.absolute) {
+			return equals(that);
+		} else if (that.names.length > names.length || (that.isEmpty() && !isEmpty())) {
+			return false;
+		}
+		int offset = names.length - that.names.length;
+		for (int i = 0; i < that.names.length; i++) {
+			if (!names[offset + i].equals(that.names[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean endsWith(String other) {
+		return endsWith(fileSystem.getPath(other));
+	}
+
+	@Override
+	public Path normalize() {
+		Deque<String> result = new ArrayDeque<>();
+		for (String name : names) {
+			if (name.equals(".")) {
+				continue;
+			} else if (name.equals("..")) {
+				if (!result.isEmpty() && !result.peekLast().equals("..")) {
+					result.removeLast();
+					continue;
+				} else if (absolute) {
+					continue; // cannot go above the root
+				}
+			}
+			result.addLast(name);
+		}
+		return new ElementPath(fileSystem, absolute, new ArrayList<>(result));
+	}
+
+	@Override
+	public Path resolve(Path other) {
+		ElementPath that = toElementPath(other);
+		if (that.absolute) {
+			return that;
+		} else if (that.isEmpty()) {
+			return this;
+		}
+		List<String> result = new ArrayList<>(Arrays.asList(names));
+		result.addAll(Arrays.asList(that.names));
+		return new ElementPath(fileSystem, absolute, result);
+	}
+
+	@Override
+	public Path resolve(String other) {
+		return resolve(fileSystem.getPath(other));
+	}
+
+	@Override
+	public Path resolveSibling(Path other) {
+		Path parent = getParent();
+		return parent == null ? other : parent.resolve(other);
+	}
+
+	@Override
+	public Path resolveSibling(String other) {
+		return resolveSibling(fileSystem.getPath(other));
+	}
+
+	@Override
+	public Path relativize(Path other) {
+		ElementPath that = toElementPath(other);
+		if (absolute != that.absolute) {
+			throw new IllegalArgumentException("'other' is different type of Path");
+		}
+
+		int common = 0;
+		while (common < names.length && common < that.names.length && names[common].equals(that.names[common])) {
+			common++;
+		}
+		List<String> result = new ArrayList<>();
+		for (int i = common; i < names.length; i++) {
+			result.add("..");
+		}
+		result.addAll(Arrays.asList(that.names).subList(common, that.names.length));
+		return new ElementPath(fileSystem, false, result);
+	}
+
+	@Override
+	public URI toUri() {
+		try {
+			return new URI(ElementFileSystemProvider.SCHEME, fileSystem.getId() + "!" + toAbsolutePath(), null);
+		} catch (URISyntaxException e) {
+			throw new IllegalStateException(e); // the path is quoted by the constructor
+		}
+	}
+
+	@Override
+	public Path toAbsolutePath() {
+		return absolute ? this : fileSystem.getRoot().resolve(this);
+	}
+
+	@Override
+	public Path toRealPath(LinkOption... options) throws IOException {
+		Path result = toAbsolutePath().normalize();
+		if (!fileSystem.exists(result)) {
+			throw new NoSuchFileException(toString());
+		}
+		return result;
+	}
+
+	@Override
+	public File toFile() {
+		throw new UnsupportedOperationException("Element paths are not associated with the default file system.");
+	}
+
+	@Override
+	public WatchKey register(WatchService watcher, WatchEvent.Kind<?>[] events, WatchEvent.Modifier... modifiers) {
+		throw new UnsupportedOperationException("Element file systems are read-only and cannot be watched.");
+	}
+
+	@Override
+	public WatchKey register(WatchService watcher, WatchEvent.Kind<?>... events) {
+		return register(watcher, events, new WatchEvent.Modifier[0]);
+	}
+
+	@Override
+	public Iterator<Path> iterator() {
+		List<Path> result = new ArrayList<>();
+		for (int i = 0; i < getNameCount(); i++) {
+			result.add(getName(i));
+		}
+		return result.iterator();
+	}
+
+	@Override
+	public int compareTo(Path other) {
+		return toString().compareTo(toElementPath(other).toString());
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+		ElementPath that = (ElementPath) o;
+		return fileSystem == that.fileSystem && absolute == that.absolute && Arrays.equals(names, that.names);
+	}
+
+	@Override
+	public int hashCode() {
+		return toString().hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return (absolute ? "/" : "") + String.join("/", names);
+	}
+
+	private boolean isEmpty() {
+		return !absolute && names.length == 0;
+	}
+
+	private ElementPath toElementPath(Path path) {
+		if (!(path instanceof ElementPath)) {
+			throw new ProviderMismatchException();
+		}
+		return (ElementPath) path;
+	}
+}
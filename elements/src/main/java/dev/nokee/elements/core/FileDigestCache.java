@@ -0,0 +1,57 @@
+package dev.nokee.elements.core;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the digest of the files hashed during previous verifications, keyed by absolute path.
+ * A remembered digest is reused while the file keeps the same size and modification time.
+ * Only the most recently used digests are remembered, the others are simply computed again.
+ *
+ * <p>Like git, files modified shortly before being hashed are not remembered:
+ * a later change within the file system timestamp granularity would keep the same modification time.
+ */
+final class FileDigestCache {
+	private static final long RACY_MODIFICATION_WINDOW_MILLIS = 2000;
+	private static final int MAX_ENTRIES = 10_000;
+	static final FileDigestCache INSTANCE = new FileDigestCache();
+	private final Map<Path, Entry> entries = Collections.synchronizedMap(new LinkedHashMap<Path, Entry>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Path, Entry> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	});
+
+	public Digest digestOf(Path file, BasicFileAttributes attributes) throws IOException {
+		Path key = file.toAbsolutePath();
+		long lastModified = attributes.lastModifiedTime().toMillis();
+		Entry entry = entries.get(key);
+		if (entry != null && entry.size == attributes.size() && entry.lastModified == lastModified) {
+			return entry.digest;
+		}
+
+		Digest result = Digest.of(file);
+		if (lastModified < System.currentTimeMillis() - RACY_MODIFICATION_WINDOW_MILLIS) {
+			entries.put(key, new Entry(attributes.size(), lastModified, result));
+		} else {
+			entries.remove(key);
+		}
+		return result;
+	}
+
+	private static final class Entry {
+		private final long size;
+		private final long lastModified;
+		private final Digest digest;
+
+		private Entry(long size, long lastModified, Digest digest) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.digest = digest;
+		}
+	}
+}
@@ -1,9 +1,13 @@
 package dev.nokee.elements.core;
 
+import java.nio.file.FileSystem;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 /**
@@ -31,8 +35,12 @@ public class FileSystemElement extends Element implements WritableElement {
 			this.sources = sources;
 		}
 
-		public void writeToDirectory(Path directory) {
-			sources.writeToDirectory(directory.resolve(location.toString()));
+		public Path getLocation() {
+			return location;
+		}
+
+		public SourceElement getSources() {
+			return sources;
 		}
 	}
 
@@ -41,14 +49,176 @@ public class FileSystemElement extends Element implements WritableElement {
 	 */
 	@Override
 	public FileSystemElement writeToDirectory(Path directory) {
-		nodes.forEach(it -> it.writeToDirectory(directory));
-		return new FileSystemElement(directory, nodes);
+		return WritePlan.of(this).writeToDirectory(directory);
+	}
+
+	/**
+	 * Write this element to the specified directory, writing the nodes and their files concurrently using the specified executor.
+	 * If any write fails, the failure of the first failing file (in node order) is thrown with the other failures suppressed.
+	 *
+	 * @param directory  the directory to write this element
+	 * @param executor  the executor to write the source files, i.e. {@link java.util.concurrent.ForkJoinPool#commonPool()}
+	 * @return a element representing the written files
+	 */
+	public FileSystemElement writeToDirectory(Path directory, Executor executor) {
+		return WritePlan.of(this).writeToDirectory(directory, executor);
+	}
+
+	/**
+	 * Write this element to the specified directory in the background, writing the source files concurrently using the specified executor.
+	 * Cancelling the returned future stops the pending writes, the files already written are kept.
+	 * If any write fails, the future completes with the failure of the first failing file (in node order) with the other failures suppressed.
+	 *
+	 * @param directory  the directory to write this element
+	 * @param executor  the executor to write the source files, i.e. {@link java.util.concurrent.ForkJoinPool#commonPool()}
+	 * @return a future completing with a element representing the written files
+	 */
+	@Override
+	public CompletableFuture<FileSystemElement> writeToDirectoryAsync(Path directory, Executor executor) {
+		return WritePlan.of(this).writeToDirectoryAsync(directory, executor);
+	}
+
+	/**
+	 * Synchronize the specified directory with this element, writing only the files that are missing or changed.
+	 * Files that are not part of this element are kept.
+	 *
+	 * @param directory  the directory to synchronize
+	 * @return a element representing the synchronized files
+	 * @see WritePlan#syncToDirectory(Path, boolean)
+	 */
+	public FileSystemElement syncToDirectory(Path directory) {
+		return syncToDirectory(directory, false);
+	}
+
+	/**
+	 * Synchronize the specified directory with this element, writing only the files that are missing or changed.
+	 *
+	 * @param directory  the directory to synchronize
+	 * @param deleteStaleFiles  {@code true} to delete the files that are not part of this element, {@code false} to keep them
+	 * @return a element representing the synchronized files
+	 * @see WritePlan#syncToDirectory(Path, boolean)
+	 */
+	public FileSystemElement syncToDirectory(Path directory, boolean deleteStaleFiles) {
+		return WritePlan.of(this).syncToDirectory(directory, deleteStaleFiles);
+	}
+
+	/**
+	 * Compare the specified directory with the files of this element, i.e. to assert a build did not modify the sources.
+	 *
+	 * @param directory  the directory to verify
+	 * @return the added, missing and modified files of the directory
+	 * @see WritePlan#verify(Path)
+	 */
+	public VerificationResult verify(Path directory) {
+		return WritePlan.of(this).verify(directory);
+	}
+
+	/**
+	 * Returns this element as a zip archive to write at the specified path.
+	 *
+	 * @param path  the archive path, relative to the directory to write
+	 * @return a zip element for this element
+	 */
+	public ZipElement asZip(String path) {
+		return new ZipElement(path, WritePlan.of(this));
+	}
+
+	/**
+	 * Returns this element as a tar archive to write at the specified path.
+	 *
+	 * @param path  the archive path, relative to the directory to write
+	 * @return a tar element for this element
+	 */
+	public TarElement asTar(String path) {
+		return new TarElement(path, WritePlan.of(this), false);
+	}
+
+	/**
+	 * Returns this element as a gzip compressed tar archive to write at the specified path.
+	 *
+	 * @param path  the archive path, relative to the directory to write
+	 * @return a tar element for this element
+	 */
+	public TarElement asTarGz(String path) {
+		return new TarElement(path, WritePlan.of(this), true);
+	}
+
+	/**
+	 * Returns a read-only file system view of this element, nothing is written to disk.
+	 * The files are served from memory at the path they would be written, relative to the root directory of the file system.
+	 * The file system should be closed once no longer used.
+	 *
+	 * @return a new read-only file system
+	 */
+	public FileSystem asFileSystem() {
+		return ElementFileSystemProvider.INSTANCE.newFileSystem(WritePlan.of(this));
+	}
+
+	List<Node> getNodes() {
+		return nodes;
 	}
 
 	public FileSystemElement apply(IncrementalElement.ChangeVisitor transform) {
+		return apply(transform, Runnable::run); // on the calling thread, parallelism is opt-in
+	}
+
+	/**
+	 * Apply the specified changes to this element, performing the planned file system operations concurrently using the specified executor.
+	 * Changes that are not planned, i.e. custom change visitors, are applied on the calling thread.
+	 *
+	 * @param transform  the changes to apply
+	 * @param executor  the executor to perform the file system operations, i.e. {@link java.util.concurrent.ForkJoinPool#commonPool()}
+	 * @return a element representing the changed files
+	 */
+	public FileSystemElement apply(IncrementalElement.ChangeVisitor transform, Executor executor) {
+		return apply(transform, executor, false);
+	}
+
+	private FileSystemElement apply(IncrementalElement.ChangeVisitor transform, Executor executor, boolean deleteEmptyDirectories) {
+		if (transform instanceof IncrementalElement.PlannedChangeVisitor) {
+			ChangePlan plan = new ChangePlan(deleteEmptyDirectories);
+			List<Node> result = new ArrayList<>(nodes.size());
+			for (Node node : nodes) {
+				result.add(new Node(node.location, ((IncrementalElement.PlannedChangeVisitor) transform).plan(base.resolve(node.location), node.sources, plan)));
+			}
+			plan.execute(executor);
+			return new FileSystemElement(base, result);
+		}
 		return new FileSystemElement(base, nodes.stream().map(it -> new Node(it.location, transform.visit(base.resolve(it.location), it.sources))).collect(Collectors.toList()));
 	}
 
+	/**
+	 * Undo the incremental changes applied to this element, returning the files to their original state.
+	 * Only the files affected by the changes are touched using the inverse of each transform, see {@link IncrementalElement.Transform#inverse()}.
+	 * Incremental sequences are stepped back to their original generation.
+	 * Directories left empty by the reverted changes are deleted, up to the location of each node.
+	 *
+	 * @return a element representing the reverted files
+	 */
+	public FileSystemElement revert() {
+		return revert(Runnable::run);
+	}
+
+	/**
+	 * Undo the incremental changes applied to this element, performing the file system operations concurrently using the specified executor.
+	 *
+	 * @param executor  the executor to perform the file system operations
+	 * @return a element representing the reverted files
+	 * @see #revert()
+	 */
+	public FileSystemElement revert(Executor executor) {
+		return apply(IncrementalSequence.toGeneration(0), executor, true);
+	}
+
+	@Override
+	protected Digest computeDigest() {
+		Digest.Builder builder = Digest.builder().putString("file-system");
+		for (Node node : nodes) {
+			builder.putString(node.location.toString().replace('\\', '/')).putDigest(node.sources.getDigest());
+		}
+		return builder.build();
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		throw new UnsupportedOperationException();
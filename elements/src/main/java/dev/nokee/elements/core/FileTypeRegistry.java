@@ -0,0 +1,91 @@
+package dev.nokee.elements.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represent the source directory of each known file type, keyed by file extension.
+ * Used by {@link GradleLayoutElement} to route the source files into their language directory, i.e. {@literal cpp} or {@literal java}.
+ */
+public final class FileTypeRegistry {
+	private static final FileTypeRegistry DEFAULTS = new FileTypeRegistry(Collections.emptyMap())
+		.withType("c", "c")
+		.withType("cpp", "cpp")
+		.withType("java", "java");
+	private final Map<String, String> directoriesByExtension;
+
+	private FileTypeRegistry(Map<String, String> directoriesByExtension) {
+		this.directoriesByExtension = directoriesByExtension;
+	}
+
+	/**
+	 * {@return a registry for the C, C++ and Java files}
+	 */
+	public static FileTypeRegistry defaults() {
+		return DEFAULTS;
+	}
+
+	/**
+	 * Returns a copy of this registry routing the files with the specified extensions to the specified directory.
+	 *
+	 * @param directory  the source directory of the file type, i.e. {@literal cpp}
+	 * @param extensions  the file extensions without the leading dot, i.e. {@literal cpp}, {@literal cc}
+	 * @return a new registry
+	 */
+	public FileTypeRegistry withType(String directory, String... extensions) {
+		Map<String, String> result = new HashMap<>(directoriesByExtension);
+		for (String extension : extensions) {
+			result.put(extension, directory);
+		}
+		return new FileTypeRegistry(Collections.unmodifiableMap(result));
+	}
+
+	/**
+	 * Returns the source directory of the specified file name.
+	 *
+	 * @param fileName  the file name to route
+	 * @return the source directory of the file type or {@code null} if the file type is unknown
+	 */
+	public String directoryOf(String fileName) {
+		int idx = fileName.lastIndexOf('.');
+		return idx == -1 ? null : directoriesByExtension.get(fileName.substring(idx + 1));
+	}
+
+	// Like before file types, the element follows its first file and elements starting with a file of unknown type are not routed.
+	// Files of unknown type, i.e. headers next to the sources, follow the first file of the element.
+	// Incremental elements and sequences are never split so their changes apply to a single location.
+	Map<String, SourceElement> partition(SourceElement element) {
+		List<SourceFile> files = element.getFiles();
+		String defaultDirectory = files.isEmpty() ? null : directoryOf(files.get(0).getName());
+		if (defaultDirectory == null) {
+			return Collections.singletonMap("", element);
+		}
+
+		String[] directories = new String[files.size()];
+		boolean isMixed = false;
+		for (int i = 0; i < directories.length; i++) {
+			directories[i] = directoryOf(files.get(i).getName());
+			if (directories[i] != null && !directories[i].equals(defaultDirectory)) {
+				isMixed = true;
+			}
+		}
+
+		if (!isMixed || element instanceof IncrementalElement || element instanceof IncrementalSequence) {
+			return Collections.singletonMap(defaultDirectory, element);
+		}
+
+		Map<String, List<SourceFile>> filesByDirectory = new LinkedHashMap<>();
+		for (int i = 0; i < directories.length; i++) {
+			String directory = directories[i] == null ? defaultDirectory : directories[i];
+			filesByDirectory.computeIfAbsent(directory, it -> new ArrayList<>()).add(files.get(i));
+		}
+
+		Map<String, SourceElement> result = new LinkedHashMap<>();
+		filesByDirectory.forEach((directory, it) -> result.put(directory, SourceElement.ofFiles(it)));
+		return Collections.unmodifiableMap(result);
+	}
+}
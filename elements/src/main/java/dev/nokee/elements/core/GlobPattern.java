@@ -0,0 +1,101 @@
+package dev.nokee.elements.core;
+
+import java.util.regex.Pattern;
+
+/**
+ * Converts glob patterns, as described by {@link java.nio.file.FileSystem#getPathMatcher(String)}, into regular expressions.
+ * Paths are expected to use {@literal /} as separator.
+ */
+final class GlobPattern {
+	private static final String REGEX_META_CHARACTERS = ".^$+{[]|()\\";
+
+	private GlobPattern() {}
+
+	public static Pattern compile(String glob) {
+		return Pattern.compile(toRegex(glob));
+	}
+
+	public static String toRegex(String glob) {
+		StringBuilder result = new StringBuilder("^");
+		boolean inGroup = false;
+		for (int i = 0; i < glob.length(); i++) {
+			char c = glob.charAt(i);
+			switch (c) {
+				case '\\':
+					if (++i == glob.length()) {
+						throw new IllegalArgumentException(String.format("Unterminated escape in glob pattern '%s'.", glob));
+					}
+					appendLiteral(result, glob.charAt(i));
+					break;
+				case '*':
+					if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+						result.append(".*"); // crosses directory boundaries
+						i++;
+					} else {
+						result.append("[^/]*");
+					}
+					break;
+				case '?':
+					result.append("[^/]");
+					break;
+				case '[':
+					int end = glob.indexOf(']', i + 1);
+					if (end == -1) {
+						throw new IllegalArgumentException(String.format("Unterminated character class in glob pattern '%s'.", glob));
+					}
+					result.append('[');
+					int start = i + 1;
+					if (start < end && glob.charAt(start) == '!') {
+						result.append('^');
+						start++;
+					}
+					for (int j = start; j < end; j++) {
+						char it = glob.charAt(j);
+						if (it == '\\' || it == '[' || it == '&') {
+							result.append('\\');
+						}
+						result.append(it);
+					}
+					result.append(']');
+					i = end;
+					break;
+				case '{':
+					if (inGroup) {
+						throw new IllegalArgumentException(String.format("Nested groups are not supported in glob pattern '%s'.", glob));
+					}
+					result.append("(?:");
+					inGroup = true;
+					break;
+				case '}':
+					if (inGroup) {
+						result.append(')');
+						inGroup = false;
+					} else {
+						appendLiteral(result, c);
+					}
+					break;
+				case ',':
+					if (inGroup) {
+						result.append('|');
+					} else {
+						result.append(c);
+					}
+					break;
+				default:
+					appendLiteral(result, c);
+			}
+		}
+
+		if (inGroup) {
+			throw new IllegalArgumentException(String.format("Unterminated group in glob pattern '%s'.", glob));
+		}
+		return result.append('$').toString();
+	}
+
+	private static void appendLiteral(StringBuilder result, char c) {
+		if (REGEX_META_CHARACTERS.indexOf(c) != -1) {
+			result.append('\\');
+		}
+		result.append(c);
+	}
+}
@@ -4,6 +4,21 @@ import dev.nokee.elements.nativebase.NativeElement;
 import dev.nokee.elements.nativebase.NativeLibraryElement;
 
 public class GradleLayoutElement extends SimpleLayoutElement {
+	private final FileTypeRegistry fileTypes;
+
+	public GradleLayoutElement() {
+		this(FileTypeRegistry.defaults());
+	}
+
+	/**
+	 * Creates a Gradle layout routing each source file to the language directory of its file type.
+	 *
+	 * @param fileTypes  the known file types
+	 */
+	public GradleLayoutElement(FileTypeRegistry fileTypes) {
+		this.fileTypes = fileTypes;
+	}
+
 	protected String projectPathOf(ProjectElement element) {
 		return element.id().toString();
 	}
@@ -32,18 +47,8 @@ public class GradleLayoutElement extends SimpleLayoutElement {
 	}
 
 	protected void visitSource(SourceElement element, Context context) {
-		if (!element.getFiles().isEmpty()) {
-			// TODO: Use UTI instead
-			SourceFile source = element.getFiles().get(0);
-			if (source.getName().endsWith(".c")) {
-				context = context.dir("c");
-			} else if (source.getName().endsWith(".cpp")) {
-				context = context.dir("cpp");
-			} else if (source.getName().endsWith(".java")) {
-				context = context.dir("java");
-			}
-		}
-
-		context.visitSources(element);
+		element.routeBy(fileTypes).forEach((directory, sources) -> {
+			(directory.isEmpty() ? context : context.dir(directory)).visitSources(sources);
+		});
 	}
 }
@@ -0,0 +1,412 @@
+package dev.nokee.elements.core;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles the Java sources of elements in memory, nothing is written to disk.
+ * Sources are served from the in-memory source files and the class files are collected in memory.
+ *
+ * <p>Many elements can be compiled in a single compiler invocation using {@link #compileAll(List)}.
+ * Elements with conflicting source paths are compiled in separate invocations.
+ * The result of each element is the same as compiling the element on its own:
+ * elements failing in a batch or that may use the classes of another element of the batch are compiled again on their own.
+ */
+public final class InMemoryJavaCompiler {
+	private static final String MAIN_SOURCE_DIRECTORY = "src/main/java/";
+	private final JavaCompiler compiler;
+	private final List<String> options;
+
+	private InMemoryJavaCompiler(JavaCompiler compiler, List<String> options) {
+		this.compiler = compiler;
+		this.options = options;
+	}
+
+	/**
+	 * Creates a compiler using the system Java compiler.
+	 *
+	 * @return a new in-memory compiler
+	 * @throws IllegalStateException if the current platform does not provide a Java compiler, i.e. running from a JRE
+	 */
+	public static InMemoryJavaCompiler create() {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
+			throw new IllegalStateException("No Java compiler available, make sure to run on a JDK.");
+		}
+		return new InMemoryJavaCompiler(compiler, Collections.emptyList());
+	}
+
+	/**
+	 * Returns a copy of this compiler using the specified compiler options, i.e. {@code -classpath} or {@code --release}.
+	 *
+	 * @param options  the compiler options
+	 * @return a new in-memory compiler
+	 */
+	public InMemoryJavaCompiler withOptions(String... options) {
+		return new InMemoryJavaCompiler(compiler, Collections.unmodifiableList(new ArrayList<>(Arrays.asList(options))));
+	}
+
+	/**
+	 * Compiles the Java sources of the specified element.
+	 * Source elements and file system elements are compiled as-is, other elements are first laid out using {@link GradleLayoutElement}
+	 * and only their main sources, under {@literal src/main/java}, are compiled.
+	 * Only the files with the {@literal .java} extension are compiled.
+	 *
+	 * @param element  the element to compile
+	 * @return the compilation result
+	 */
+	public Result compile(Element element) {
+		return compileAll(Collections.singletonList(element)).get(0);
+	}
+
+	/**
+	 * Compiles the Java sources of the specified elements, batching the elements into as few compiler invocations as possible.
+	 * Elements are not compiled against each other, an element using the classes of another element fails like when compiled on its own.
+	 *
+	 * @param elements  the elements to compile
+	 * @return the compilation result of each element, in the same order
+	 * @see #compile(Element)
+	 */
+	public List<Result> compileAll(List<? extends Element> elements) {
+		List<Unit> units = new ArrayList<>(elements.size());
+		for (Element element : elements) {
+			units.add(unitOf(element));
+		}
+
+		for (List<Unit> batch : batchesOf(units)) {
+			compileIndependently(batch);
+		}
+
+		List<Result> result = new ArrayList<>(units.size());
+		for (Unit unit : units) {
+			result.add(new Result(unit.diagnostics, unit.classes));
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	private static Unit unitOf(Element element) {
+		if (element instanceof SourceElement) {
+			return new Unit(WritePlan.of((SourceElement) element), it -> true);
+		} else if (element instanceof FileSystemElement) {
+			return new Unit(WritePlan.of((FileSystemElement) element), it -> true);
+		}
+		return new Unit(WritePlan.of(new GradleLayoutElement().applyTo(element)), InMemoryJavaCompiler::isMainSource);
+	}
+
+	// Laid out elements may contain many projects, i.e. app/src/main/java
+	private static boolean isMainSource(String path) {
+		return path.startsWith(MAIN_SOURCE_DIRECTORY) || path.contains("/" + MAIN_SOURCE_DIRECTORY);
+	}
+
+	// Greedily assign each unit to the first batch without any of its source paths
+	private static List<List<Unit>> batchesOf(List<Unit> units) {
+		List<List<Unit>> result = new ArrayList<>();
+		List<Set<String>> pathsOfBatches = new ArrayList<>();
+		for (Unit unit : units) {
+			int idx = 0;
+			while (idx < result.size() && !Collections.disjoint(pathsOfBatches.get(idx), unit.sources.keySet())) {
+				idx++;
+			}
+			if (idx == result.size()) {
+				result.add(new ArrayList<>());
+				pathsOfBatches.add(new HashSet<>());
+			}
+			result.get(idx).add(unit);
+			pathsOfBatches.get(idx).addAll(unit.sources.keySet());
+		}
+		return result;
+	}
+
+	// Units only see each other's classes in a batch, the units that failed or may use another unit are compiled alone
+	private void compileIndependently(List<Unit> batch) {
+		compileBatch(batch);
+		if (batch.size() == 1) {
+			return;
+		}
+		boolean hasErrors = batch.stream().anyMatch(Unit::hasErrors);
+
+		List<Unit> isolatedUnits = new ArrayList<>();
+		List<Unit> remainingUnits = new ArrayList<>();
+		for (Unit unit : batch) {
+			if (unit.hasErrors() || mayUseOthers(unit, batch)) {
+				isolatedUnits.add(unit);
+			} else {
+				remainingUnits.add(unit);
+			}
+		}
+
+		for (Unit unit : isolatedUnits) {
+			unit.clear();
+			compileBatch(Collections.singletonList(unit));
+		}
+
+		// Errors prevent javac from generating class files for the whole batch, recompile the remaining units
+		if (hasErrors && !remainingUnits.isEmpty()) {
+			remainingUnits.forEach(Unit::clear);
+			compileIndependently(remainingUnits);
+		}
+	}
+
+	// Conservatively, a unit mentioning the simple name and the package of a class of another unit may use the class
+	private static boolean mayUseOthers(Unit unit, List<Unit> batch) {
+		Set<String> identifiers = unit.identifiers();
+		Map<String, Boolean> mentionedPackages = new HashMap<>();
+		for (Unit other : batch) {
+			if (other == unit) {
+				continue;
+			}
+			for (String className : other.classes.keySet()) {
+				int idx = className.lastIndexOf('.');
+				String packageName = idx == -1 ? "" : className.substring(0, idx);
+				String simpleName = className.substring(idx + 1).split("\\$", -1)[0];
+				if (identifiers.contains(simpleName) && (packageName.isEmpty() || mentionedPackages.computeIfAbsent(packageName, unit::mentions))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private void compileBatch(List<Unit> batch) {
+		Map<URI, Unit> unitsBySource = new HashMap<>();
+		List<JavaFileObject> sources = new ArrayList<>();
+		for (Unit unit : batch) {
+			for (SourceFileObject source : unit.sources.values()) {
+				unitsBySource.put(source.toUri(), unit);
+				sources.add(source);
+			}
+		}
+		if (sources.isEmpty()) {
+			return; // javac refuses to run without sources
+		}
+
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
+		try (JavaFileManager fileManager = new InMemoryFileManager(standardFileManager, unitsBySource, batch)) {
+			compiler.getTask(null, fileManager, diagnostics, options, null, sources).call();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // in-memory
+		}
+
+		for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+			Unit unit = diagnostic.getSource() == null ? null : unitsBySource.get(diagnostic.getSource().toUri());
+			if (unit == null) {
+				batch.forEach(it -> it.diagnostics.add(diagnostic)); // i.e. invalid options
+			} else {
+				unit.diagnostics.add(diagnostic);
+			}
+		}
+	}
+
+	private static final class Unit {
+		private final Map<String, SourceFileObject> sources = new LinkedHashMap<>();
+		private final List<Diagnostic<? extends JavaFileObject>> diagnostics = new ArrayList<>();
+		private final Map<String, byte[]> classes = new LinkedHashMap<>();
+
+		private Unit(WritePlan plan, Predicate<String> isSource) {
+			for (WritePlan.Entry entry : plan.getEntries()) {
+				if (entry.getPath().endsWith(JavaFileObject.Kind.SOURCE.extension) && isSource.test(entry.getPath())) {
+					sources.put(entry.getPath(), new SourceFileObject(entry.getPath(), entry.getFile()));
+				}
+			}
+		}
+
+		private boolean hasErrors() {
+			return diagnostics.stream().anyMatch(it -> it.getKind() == Diagnostic.Kind.ERROR);
+		}
+
+		private void clear() {
+			diagnostics.clear();
+			classes.clear();
+		}
+
+		private Set<String> identifiers() {
+			Set<String> result = new HashSet<>();
+			for (SourceFileObject source : sources.values()) {
+				String content = source.getCharContent(true).toString();
+				for (int i = 0; i < content.length(); i++) {
+					if (Character.isJavaIdentifierStart(content.charAt(i))) {
+						int start = i;
+						while (i + 1 < content.length() && Character.isJavaIdentifierPart(content.charAt(i + 1))) {
+							i++;
+						}
+						result.add(content.substring(start, i + 1));
+					}
+				}
+			}
+			return result;
+		}
+
+		private boolean mentions(String packageName) {
+			Pattern pattern = Pattern.compile("(?<![\\p{javaJavaIdentifierPart}.])" + Pattern.quote(packageName) + "(?!\\p{javaJavaIdentifierPart})");
+			return sources.values().stream().anyMatch(it -> pattern.matcher(it.getCharContent(true)).find());
+		}
+	}
+
+	private static final class InMemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+		private final Map<URI, Unit> unitsBySource;
+		private final List<Unit> batch;
+
+		private InMemoryFileManager(StandardJavaFileManager fileManager, Map<URI, Unit> unitsBySource, List<Unit> batch) {
+			super(fileManager);
+			this.unitsBySource = unitsBySource;
+			this.batch = batch;
+		}
+
+		@Override
+		public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+			Unit unit = sibling == null ? null : unitsBySource.get(sibling.toUri());
+			return new OutputFileObject(className, kind, bytes -> {
+				if (kind != JavaFileObject.Kind.CLASS) {
+					return; // i.e. annotation processor outputs, only kept for the compilation
+				} else if (unit == null) {
+					batch.forEach(it -> it.classes.put(className, bytes));
+				} else {
+					unit.classes.put(className, bytes);
+				}
+			});
+		}
+
+		@Override
+		public boolean isSameFile(FileObject a, FileObject b) {
+			if (a instanceof SimpleJavaFileObject || b instanceof SimpleJavaFileObject) {
+				return a.toUri().equals(b.toUri()); // the standard file manager only supports its own file objects
+			}
+			return super.isSameFile(a, b);
+		}
+	}
+
+	private static URI uriOf(String path) {
+		try {
+			return new URI("memory", null, "/" + path, null);
+		} catch (URISyntaxException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	private static final class SourceFileObject extends SimpleJavaFileObject {
+		private final SourceFile file;
+
+		private SourceFileObject(String path, SourceFile file) {
+			super(uriOf(path), Kind.SOURCE);
+			this.file = file;
+		}
+
+		@Override
+		public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+			return file.getContent();
+		}
+
+		@Override
+		public InputStream openInputStream() {
+			return new ByteArrayInputStream(file.getBytes());
+		}
+	}
+
+	private interface OutputListener {
+		void written(byte[] bytes);
+	}
+
+	private static final class OutputFileObject extends SimpleJavaFileObject {
+		private final OutputListener listener;
+		private volatile byte[] bytes = new byte[0];
+
+		private OutputFileObject(String className, Kind kind, OutputListener listener) {
+			super(uriOf(className.replace('.', '/') + kind.extension), kind);
+			this.listener = listener;
+		}
+
+		@Override
+		public OutputStream openOutputStream() {
+			return new ByteArrayOutputStream() {
+				@Override
+				public void close() {
+					bytes = toByteArray();
+					listener.written(bytes);
+				}
+			};
+		}
+
+		// Generated sources are read back by the compiler
+		@Override
+		public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public InputStream openInputStream() {
+			return new ByteArrayInputStream(bytes);
+		}
+	}
+
+	/**
+	 * Represent the result of compiling an element.
+	 */
+	public static final class Result {
+		private final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+		private final Map<String, byte[]> classes;
+
+		private Result(List<Diagnostic<? extends JavaFileObject>> diagnostics, Map<String, byte[]> classes) {
+			this.diagnostics = Collections.unmodifiableList(new ArrayList<>(diagnostics));
+			this.classes = Collections.unmodifiableMap(new LinkedHashMap<>(classes));
+		}
+
+		/**
+		 * {@return {@code true} if the element compiled without errors}
+		 */
+		public boolean isSuccessful() {
+			return diagnostics.stream().noneMatch(it -> it.getKind() == Diagnostic.Kind.ERROR);
+		}
+
+		/**
+		 * {@return the compiler diagnostics reported for the element}
+		 */
+		public List<Diagnostic<? extends JavaFileObject>> getDiagnostics() {
+			return diagnostics;
+		}
+
+		/**
+		 * {@return the compiled class files keyed by binary class name, the bytes must not be modified}
+		 */
+		public Map<String, byte[]> getClasses() {
+			return classes;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder result = new StringBuilder(isSuccessful() ? "successful" : "failed");
+			for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+				result.append(System.lineSeparator()).append(diagnostic);
+			}
+			return result.toString();
+		}
+	}
+}
@@ -5,27 +5,26 @@ import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 /**
  * Represent a source element with transformation changes.
- * Use {@link IncrementalElement#allChanges()} with {@link FileSystemElement#apply(ChangeVisitor)} to apply all incremental changes.
+ * Use {@link IncrementalElement#allChanges()} with {@link FileSystemElement#apply(ChangeVisitor)} to apply all incremental changes,
+ * or {@link IncrementalElement#asPatch(String)} to ship the changes as a patch file.
  */
-// TODO: Allow to write the changes as a patch file
-//  most likely convert the changes to a SourceFile which is a patch file
-//  The idea is:
-//  samples.foo.sources {
-//    def app = new MyApp()
-//    project('.').fromTemplate(app)
-//    project('.').fromTemplate(sourceFile("my-patch.patch", diffTool(inGradleLayout(app), inGradleLayout(app).applyAllChanges())))
-//  }
 public abstract class IncrementalElement extends SourceElement {
 	private final OriginalElement original = new OriginalElement();
 	private final AlternateElement alternate = new AlternateElement();
+	private volatile List<Transform> changes;
+	private volatile List<Transform> reversedChanges;
 
 	public final OriginalElement getOriginalElement() {
 		return original;
@@ -37,6 +36,58 @@ public abstract class IncrementalElement extends SourceElement {
 
 	protected abstract List<Transform> getIncrementalChanges();
 
+	// The incremental changes are computed once, all views of this element share the same transforms
+	final List<Transform> getChanges() {
+		List<Transform> result = changes;
+		if (result == null) {
+			result = Collections.unmodifiableList(new ArrayList<>(getIncrementalChanges()));
+			changes = result;
+		}
+		return result;
+	}
+
+	// The files before the changes, in the order of the changes by default
+	List<SourceFile> originalFiles() {
+		return getChanges().stream().flatMap(it -> it.getBeforeFiles().stream()).collect(Collectors.toList());
+	}
+
+	// The files after the changes, in the order of the changes by default
+	List<SourceFile> alternateFiles() {
+		return getChanges().stream().flatMap(it -> it.getAfterFiles().stream()).collect(Collectors.toList());
+	}
+
+	// The inverse of this element's changes, in reverse order
+	// Changes without an inverse are reverted by the changes between the alternate and original files instead
+	final List<Transform> getReversedChanges() {
+		List<Transform> result = reversedChanges;
+		if (result == null) {
+			List<Transform> changes = getChanges();
+			List<Transform> reversed = new ArrayList<>(changes.size());
+			for (int i = changes.size() - 1; i >= 0; i--) {
+				Optional<Transform> inverse = changes.get(i).inverse();
+				if (!inverse.isPresent()) {
+					reversed = StructuralDiff.between(getAlternateElement(), getOriginalElement());
+					break;
+				}
+				reversed.add(inverse.get());
+			}
+			result = Collections.unmodifiableList(reversed);
+			reversedChanges = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the incremental changes as a git-style unified diff, applicable to the directory where this element is written.
+	 *
+	 * @param path  the patch file path
+	 * @return a source file containing the patch
+	 * @see UnifiedDiff
+	 */
+	public final SourceFile asPatch(String path) {
+		return UnifiedDiff.between(path, getOriginalElement(), getAlternateElement());
+	}
+
 	@Override
 	public final List<SourceFile> getFiles() {
 		return getOriginalElement().getFiles();
@@ -48,6 +99,62 @@ public abstract class IncrementalElement extends SourceElement {
 		List<SourceFile> getBeforeFiles();
 
 		List<SourceFile> getAfterFiles();
+
+		/**
+		 * Returns the transform undoing this transform, i.e. the inverse of an add is a delete of the same files.
+		 * All built-in transforms have an inverse.
+		 * Elements with changes without an inverse are reverted using the changes between their alternate and original files, see {@link #changesBetween(SourceElement, SourceElement)}.
+		 *
+		 * @return a transform changing the after files back into the before files, or empty if unknown
+		 */
+		default Optional<Transform> inverse() {
+			return Optional.empty();
+		}
+	}
+
+	// Transforms fully described by their before and after files, they can be planned together, see ChangePlan
+	abstract static class FileTransform implements Transform {}
+
+	/**
+	 * Returns an incremental element changing the original sources into the revised sources.
+	 * The original and alternate elements are equal to the original and revised sources.
+	 *
+	 * @param original  the sources before the changes
+	 * @param revised  the sources after the changes
+	 * @return a new incremental element
+	 * @see #changesBetween(SourceElement, SourceElement)
+	 */
+	public static IncrementalElement between(SourceElement original, SourceElement revised) {
+		return new IncrementalElement() {
+			@Override
+			protected List<Transform> getIncrementalChanges() {
+				return changesBetween(original, revised);
+			}
+
+			@Override
+			List<SourceFile> originalFiles() {
+				return original.getFiles();
+			}
+
+			@Override
+			List<SourceFile> alternateFiles() {
+				return revised.getFiles();
+			}
+		};
+	}
+
+	/**
+	 * Returns the transforms changing the original sources into the revised sources.
+	 * Files are matched by path, then by content digest so a file found at a new path is moved or renamed instead of deleted and added.
+	 * Files of the same kind of change are grouped in a single transform.
+	 * Runs in linear time of the number of files.
+	 *
+	 * @param original  the sources before the changes
+	 * @param revised  the sources after the changes
+	 * @return the transforms to use in {@link IncrementalElement#getIncrementalChanges()}
+	 */
+	public static List<Transform> changesBetween(SourceElement original, SourceElement revised) {
+		return StructuralDiff.between(original, revised);
 	}
 
 	/**
@@ -58,7 +165,7 @@ public abstract class IncrementalElement extends SourceElement {
 	 * @return a transform to use in {@link IncrementalElement#getIncrementalChanges()}.
 	 */
 	public static Transform replace(SourceElement beforeElement, SourceElement afterElement) {
-		return new Transform() {
+		return new FileTransform() {
 			@Override
 			public void applyChangesTo(Path directory) {
 				try {
@@ -81,6 +188,11 @@ public abstract class IncrementalElement extends SourceElement {
 			public List<SourceFile> getAfterFiles() {
 				return afterElement.getFiles();
 			}
+
+			@Override
+			public Optional<Transform> inverse() {
+				return Optional.of(replace(afterElement, beforeElement));
+			}
 		};
 	}
 
@@ -91,7 +203,7 @@ public abstract class IncrementalElement extends SourceElement {
 	 * @return a transform to use in {@link IncrementalElement#getIncrementalChanges()}.
 	 */
 	protected static Transform preserve(final SourceElement element) {
-		return new Transform() {
+		return new FileTransform() {
 			@Override
 			public void applyChangesTo(Path directory) {}
 
@@ -104,6 +216,11 @@ public abstract class IncrementalElement extends SourceElement {
 			public List<SourceFile> getAfterFiles() {
 				return element.getFiles();
 			}
+
+			@Override
+			public Optional<Transform> inverse() {
+				return Optional.of(this);
+			}
 		};
 	}
 
@@ -118,7 +235,7 @@ public abstract class IncrementalElement extends SourceElement {
 	protected static Transform modify(final SourceElement beforeElement, final SourceElement afterElement) {
 		assert hasSameFiles(beforeElement.getFiles(), afterElement.getFiles());
 
-		return new Transform() {
+		return new FileTransform() {
 			@Override
 			public void applyChangesTo(Path directory) {
 				afterElement.writeToDirectory(directory);
@@ -133,6 +250,11 @@ public abstract class IncrementalElement extends SourceElement {
 			public List<SourceFile> getAfterFiles() {
 				return afterElement.getFiles();
 			}
+
+			@Override
+			public Optional<Transform> inverse() {
+				return Optional.of(modify(afterElement, beforeElement));
+			}
 		};
 	}
 
@@ -141,16 +263,12 @@ public abstract class IncrementalElement extends SourceElement {
 			return false;
 		}
 
+		Set<String> afterPaths = new HashSet<>(afterFiles.size() * 4 / 3 + 1);
+		for (SourceFile afterFile : afterFiles) {
+			afterPaths.add(StructuralDiff.keyOf(afterFile));
+		}
 		for (SourceFile beforeFile : beforeFiles) {
-			boolean found = false;
-			for (SourceFile afterFile : afterFiles) {
-				if (beforeFile.getName().equals(afterFile.getName()) && beforeFile.getPath().equals(afterFile.getPath())) {
-					found = true;
-					break;
-				}
-			}
-
-			if (!found) {
+			if (!afterPaths.contains(StructuralDiff.keyOf(beforeFile))) {
 				return false;
 			}
 		}
@@ -165,7 +283,7 @@ public abstract class IncrementalElement extends SourceElement {
 	 * @return a transform to use in {@link IncrementalElement#getIncrementalChanges()}.
 	 */
 	protected static Transform delete(final SourceElement beforeElement) {
-		return new Transform() {
+		return new FileTransform() {
 			@Override
 			public void applyChangesTo(Path directory) {
 				for (SourceFile file : beforeElement.getFiles()) {
@@ -191,6 +309,11 @@ public abstract class IncrementalElement extends SourceElement {
 			public List<SourceFile> getAfterFiles() {
 				return Collections.emptyList();
 			}
+
+			@Override
+			public Optional<Transform> inverse() {
+				return Optional.of(add(beforeElement));
+			}
 		};
 	}
 
@@ -201,7 +324,7 @@ public abstract class IncrementalElement extends SourceElement {
 	 * @return a transform to use in {@link IncrementalElement#getIncrementalChanges()}.
 	 */
 	protected static Transform add(final SourceElement afterElement) {
-		return new Transform() {
+		return new FileTransform() {
 			@Override
 			public void applyChangesTo(Path directory) {
 				afterElement.writeToDirectory(directory);
@@ -216,6 +339,11 @@ public abstract class IncrementalElement extends SourceElement {
 			public List<SourceFile> getAfterFiles() {
 				return afterElement.getFiles();
 			}
+
+			@Override
+			public Optional<Transform> inverse() {
+				return Optional.of(delete(afterElement));
+			}
 		};
 	}
 
@@ -228,7 +356,7 @@ public abstract class IncrementalElement extends SourceElement {
 	 * @return a transform to use in {@link IncrementalElement#getIncrementalChanges()}.
 	 */
 	protected static Transform move(SourceElement beforeElement, String destinationPath) {
-		return new Transform() {
+		return new FileTransform() {
 			@Override
 			public void applyChangesTo(Path directory) {
 				try {
@@ -254,6 +382,11 @@ public abstract class IncrementalElement extends SourceElement {
 			public List<SourceFile> getAfterFiles() {
 				return beforeElement.getFiles().stream().map(it -> it.withPath(path -> Paths.get(destinationPath).resolve(path.getFileName()))).collect(Collectors.toList());
 			}
+
+			@Override
+			public Optional<Transform> inverse() {
+				return Optional.of(relocate(getAfterFiles(), getBeforeFiles()));
+			}
 		};
 	}
 
@@ -276,7 +409,7 @@ public abstract class IncrementalElement extends SourceElement {
 	 * @return a transform to use in {@link IncrementalElement#getIncrementalChanges()}.
 	 */
 	protected static Transform rename(SourceElement beforeElement, UnaryOperator<String> renameOperation) {
-		return new Transform() {
+		return new FileTransform() {
 			@Override
 			public void applyChangesTo(Path directory) {
 				for (SourceFile file : beforeElement.getFiles()) {
@@ -302,6 +435,45 @@ public abstract class IncrementalElement extends SourceElement {
 			public List<SourceFile> getAfterFiles() {
 				return beforeElement.getFiles().stream().map(it -> it.withName(renameOperation)).collect(Collectors.toList());
 			}
+
+			@Override
+			public Optional<Transform> inverse() {
+				return Optional.of(relocate(getAfterFiles(), getBeforeFiles()));
+			}
+		};
+	}
+
+	// Moves each before file to the location of the after file at the same index, the inverse of move and rename
+	static Transform relocate(List<SourceFile> beforeFiles, List<SourceFile> afterFiles) {
+		return new FileTransform() {
+			@Override
+			public void applyChangesTo(Path directory) {
+				for (int i = 0; i < beforeFiles.size(); i++) {
+					Path src = directory.resolve(beforeFiles.get(i).getPath()).resolve(beforeFiles.get(i).getName());
+					Path dst = directory.resolve(afterFiles.get(i).getPath()).resolve(afterFiles.get(i).getName());
+					try {
+						Files.createDirectories(dst.getParent());
+						Files.move(src, dst);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+			}
+
+			@Override
+			public List<SourceFile> getBeforeFiles() {
+				return beforeFiles;
+			}
+
+			@Override
+			public List<SourceFile> getAfterFiles() {
+				return afterFiles;
+			}
+
+			@Override
+			public Optional<Transform> inverse() {
+				return Optional.of(relocate(afterFiles, beforeFiles));
+			}
 		};
 	}
 
@@ -309,9 +481,20 @@ public abstract class IncrementalElement extends SourceElement {
 	 * Represent the source element before applying the changes
 	 */
 	public final class OriginalElement extends SourceElement {
+		private volatile List<SourceFile> files;
+
+		IncrementalElement getIncrementalElement() {
+			return IncrementalElement.this;
+		}
+
 		@Override
 		public List<SourceFile> getFiles() {
-			return getIncrementalChanges().stream().flatMap(it -> it.getBeforeFiles().stream()).collect(Collectors.toList());
+			List<SourceFile> result = files;
+			if (result == null) {
+				result = Collections.unmodifiableList(new ArrayList<>(originalFiles()));
+				files = result;
+			}
+			return result;
 		}
 	}
 
@@ -319,9 +502,20 @@ public abstract class IncrementalElement extends SourceElement {
 	 * Represent the source element after applying the changes.
 	 */
 	public final class AlternateElement extends SourceElement {
+		private volatile List<SourceFile> files;
+
+		IncrementalElement getIncrementalElement() {
+			return IncrementalElement.this;
+		}
+
 		@Override
 		public List<SourceFile> getFiles() {
-			return getIncrementalChanges().stream().flatMap(it -> it.getAfterFiles().stream()).collect(Collectors.toList());
+			List<SourceFile> result = files;
+			if (result == null) {
+				result = Collections.unmodifiableList(new ArrayList<>(alternateFiles()));
+				files = result;
+			}
+			return result;
 		}
 	}
 
@@ -330,20 +524,44 @@ public abstract class IncrementalElement extends SourceElement {
 		visitor.visit(this);
 	}
 
+	/**
+	 * Returns a change visitor applying the changes of the incremental elements.
+	 * Incremental sequences are stepped to their last generation.
+	 *
+	 * @return a change visitor to use with {@link FileSystemElement#apply(ChangeVisitor)}
+	 */
 	public static ChangeVisitor allChanges() {
-		return new ChangeVisitor() {
-			@Override
-			public SourceElement visit(Path location, SourceElement element) {
-				if (element instanceof IncrementalElement) {
-					for (Transform change : ((IncrementalElement) element).getIncrementalChanges()) {
-						change.applyChangesTo(location);
-					}
-					// TODO: Would have to keep the identifier
-					return ((IncrementalElement) element).getAlternateElement();
+		return new AllChanges();
+	}
+
+	private static final class AllChanges extends PlannedChangeVisitor {
+		@Override
+		SourceElement plan(Path location, SourceElement element, ChangePlan plan) {
+			if (element instanceof IncrementalElement) {
+				for (Transform change : ((IncrementalElement) element).getChanges()) {
+					plan.add(location, change);
 				}
-				return element;
+				return ((IncrementalElement) element).getAlternateElement();
+			} else if (element instanceof IncrementalSequence || element instanceof IncrementalSequence.Generation) {
+				return IncrementalSequence.lastGeneration().plan(location, element, plan);
 			}
-		};
+			return element;
+		}
+	}
+
+	// Visitors planning the changes of all nodes together so redundant operations are collapsed across elements, see ChangePlan
+	// Visited outside of FileSystemElement#apply(ChangeVisitor, Executor), the operations run on the calling thread
+	abstract static class PlannedChangeVisitor implements ChangeVisitor {
+		@Override
+		public final SourceElement visit(Path location, SourceElement element) {
+			ChangePlan plan = new ChangePlan();
+			SourceElement result = plan(location, element, plan);
+			plan.execute(Runnable::run);
+			return result;
+		}
+
+		// Adds the changes of the element at the specified location to the plan and returns the element after the changes
+		abstract SourceElement plan(Path location, SourceElement element, ChangePlan plan);
 	}
 
 	// TODO: Move outside of this class
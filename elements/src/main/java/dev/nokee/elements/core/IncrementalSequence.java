@@ -0,0 +1,189 @@
+package dev.nokee.elements.core;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Represent a source element going through many generations of incremental changes.
+ * Generation 0 is the original sources, generation {@code N} is the sources after applying the changes of the first {@code N} steps.
+ * Each step is an incremental element starting from the sources of the previous generation.
+ *
+ * <p>The transforms of each step are computed once and shared by every stepping, so a written sequence can be stepped forward and backward repeatedly.
+ * Use {@link #nextGeneration()}, {@link #previousGeneration()} or {@link #toGeneration(int)} with {@link FileSystemElement#apply(IncrementalElement.ChangeVisitor)}.
+ * Stepping over many generations at once is planned as a single set of file operations, only the files that differ between both generations are touched.
+ */
+public final class IncrementalSequence extends SourceElement {
+	private final List<IncrementalElement> steps;
+	private final List<Generation> generations;
+
+	private IncrementalSequence(List<IncrementalElement> steps) {
+		this.steps = steps;
+		List<Generation> generations = new ArrayList<>(steps.size() + 1);
+		for (int i = 0; i <= steps.size(); i++) {
+			generations.add(new Generation(i));
+		}
+		this.generations = Collections.unmodifiableList(generations);
+	}
+
+	/**
+	 * Creates a sequence of the specified steps.
+	 *
+	 * @param steps  the incremental changes of each generation, in order
+	 * @return a new incremental sequence
+	 */
+	public static IncrementalSequence of(IncrementalElement... steps) {
+		return of(Arrays.asList(steps));
+	}
+
+	/**
+	 * Creates a sequence of the specified steps.
+	 *
+	 * @param steps  the incremental changes of each generation, in order
+	 * @return a new incremental sequence
+	 */
+	public static IncrementalSequence of(List<? extends IncrementalElement> steps) {
+		return new IncrementalSequence(Collections.unmodifiableList(new ArrayList<>(steps)));
+	}
+
+	/**
+	 * {@return the generations of this sequence, starting with the original sources at index 0}
+	 */
+	public List<Generation> getGenerations() {
+		return generations;
+	}
+
+	/**
+	 * Returns the specified generation of this sequence.
+	 *
+	 * @param index  the generation index, between 0 and the number of steps (inclusive)
+	 * @return the source element of the generation
+	 */
+	public Generation getGeneration(int index) {
+		return generations.get(index);
+	}
+
+	@Override
+	public List<SourceFile> getFiles() {
+		return getGeneration(0).getFiles();
+	}
+
+	/**
+	 * Represent the sources of a sequence at a specific generation.
+	 */
+	public final class Generation extends SourceElement {
+		private final int index;
+
+		private Generation(int index) {
+			this.index = index;
+		}
+
+		public IncrementalSequence getSequence() {
+			return IncrementalSequence.this;
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		@Override
+		public List<SourceFile> getFiles() {
+			if (steps.isEmpty()) {
+				return Collections.emptyList();
+			} else if (index == 0) {
+				return steps.get(0).getOriginalElement().getFiles();
+			}
+			return steps.get(index - 1).getAlternateElement().getFiles();
+		}
+	}
+
+	/**
+	 * Returns a change visitor stepping the sequences one generation forward.
+	 * Sequences already at their last generation are left as-is.
+	 * Incremental elements are considered as a sequence of a single step.
+	 *
+	 * @return a change visitor to use with {@link FileSystemElement#apply(IncrementalElement.ChangeVisitor)}
+	 */
+	public static IncrementalElement.ChangeVisitor nextGeneration() {
+		return new StepTo((current, last) -> Math.min(current + 1, last));
+	}
+
+	/**
+	 * Returns a change visitor stepping the sequences one generation backward, undoing the changes of the current generation.
+	 * Sequences at their original generation are left as-is.
+	 * Incremental elements are considered as a sequence of a single step.
+	 *
+	 * @return a change visitor to use with {@link FileSystemElement#apply(IncrementalElement.ChangeVisitor)}
+	 */
+	public static IncrementalElement.ChangeVisitor previousGeneration() {
+		return new StepTo((current, last) -> Math.max(current - 1, 0));
+	}
+
+	/**
+	 * Returns a change visitor stepping the sequences forward or backward to the specified generation.
+	 *
+	 * @param index  the generation index to step to
+	 * @return a change visitor to use with {@link FileSystemElement#apply(IncrementalElement.ChangeVisitor)}
+	 * @throws IllegalArgumentException if a visited sequence has no such generation
+	 */
+	public static IncrementalElement.ChangeVisitor toGeneration(int index) {
+		return new StepTo((current, last) -> {
+			if (index < 0 || index > last) {
+				throw new IllegalArgumentException(String.format("Generation %d does not exist, the sequence has %d generations.", index, last + 1));
+			}
+			return index;
+		});
+	}
+
+	static StepTo lastGeneration() {
+		return new StepTo((current, last) -> last);
+	}
+
+	static final class StepTo extends IncrementalElement.PlannedChangeVisitor {
+		private final IntBinaryOperator targetIndex; // of the current and the last generation index
+
+		private StepTo(IntBinaryOperator targetIndex) {
+			this.targetIndex = targetIndex;
+		}
+
+		@Override
+		SourceElement plan(Path location, SourceElement element, ChangePlan plan) {
+			if (element instanceof IncrementalSequence) {
+				return step(location, ((IncrementalSequence) element).getGeneration(0), plan);
+			} else if (element instanceof Generation) {
+				return step(location, (Generation) element, plan);
+			} else if (element instanceof IncrementalElement) {
+				IncrementalElement incremental = (IncrementalElement) element;
+				return planChanges(location, Collections.singletonList(incremental), 0, plan) == 0 ? incremental : incremental.getAlternateElement();
+			} else if (element instanceof IncrementalElement.AlternateElement) {
+				IncrementalElement incremental = ((IncrementalElement.AlternateElement) element).getIncrementalElement();
+				return planChanges(location, Collections.singletonList(incremental), 1, plan) == 0 ? incremental : element;
+			}
+			return element;
+		}
+
+		private Generation step(Path location, Generation generation, ChangePlan plan) {
+			IncrementalSequence sequence = generation.getSequence();
+			return sequence.getGeneration(planChanges(location, sequence.steps, generation.getIndex(), plan));
+		}
+
+		// Adds the changes from the current generation to the target generation, returns the target generation index
+		private int planChanges(Path location, List<IncrementalElement> steps, int current, ChangePlan plan) {
+			int target = targetIndex.applyAsInt(current, steps.size());
+			for (int i = current; i < target; i++) {
+				for (IncrementalElement.Transform change : steps.get(i).getChanges()) {
+					plan.add(location, change);
+				}
+			}
+			for (int i = current - 1; i >= target; i--) {
+				for (IncrementalElement.Transform change : steps.get(i).getReversedChanges()) {
+					plan.add(location, change);
+				}
+			}
+			return target;
+		}
+	}
+}
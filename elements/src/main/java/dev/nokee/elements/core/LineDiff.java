@@ -0,0 +1,195 @@
+package dev.nokee.elements.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes the shortest edit script between two sequences of lines using Myers' linear space algorithm.
+ * The sequences are recursively split at the middle snake found by searching forward and backward simultaneously,
+ * so the memory stays proportional to the number of lines regardless of the number of differences.
+ */
+final class LineDiff {
+	private final int[] a;
+	private final int[] b;
+	private final boolean[] removed;
+	private final boolean[] added;
+	private final int[] forward;
+	private final int[] backward;
+
+	private LineDiff(int[] a, int[] b) {
+		this.a = a;
+		this.b = b;
+		this.removed = new boolean[a.length];
+		this.added = new boolean[b.length];
+		int size = a.length + b.length + 2;
+		this.forward = new int[2 * size + 2];
+		this.backward = new int[2 * size + 2];
+	}
+
+	enum Operation {
+		EQUAL, DELETE, INSERT
+	}
+
+	/**
+	 * Returns the edit script transforming the original lines into the revised lines.
+	 * Deletions are reported before insertions at the same position.
+	 *
+	 * @param original  the original lines
+	 * @param revised  the revised lines
+	 * @return the operation for each line, in order
+	 */
+	public static List<Operation> diff(List<String> original, List<String> revised) {
+		// Compare lines by identifier instead of by content
+		Map<String, Integer> identifiers = new HashMap<>();
+		int[] a = identifiersOf(original, identifiers);
+		int[] b = identifiersOf(revised, identifiers);
+
+		LineDiff diff = new LineDiff(a, b);
+		diff.compare(0, a.length, 0, b.length);
+
+		List<Operation> result = new ArrayList<>(Math.max(a.length, b.length));
+		int i = 0;
+		int j = 0;
+		while (i < a.length || j < b.length) {
+			if (i < a.length && diff.removed[i]) {
+				result.add(Operation.DELETE);
+				i++;
+			} else if (j < b.length && diff.added[j]) {
+				result.add(Operation.INSERT);
+				j++;
+			} else {
+				result.add(Operation.EQUAL);
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	private static int[] identifiersOf(List<String> lines, Map<String, Integer> identifiers) {
+		int[] result = new int[lines.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = identifiers.computeIfAbsent(lines.get(i), it -> identifiers.size());
+		}
+		return result;
+	}
+
+	private void compare(int aLow, int aHigh, int bLow, int bHigh) {
+		while (aLow < aHigh && bLow < bHigh && a[aLow] == b[bLow]) {
+			aLow++;
+			bLow++;
+		}
+		while (aLow < aHigh && bLow < bHigh && a[aHigh - 1] == b[bHigh - 1]) {
+			aHigh--;
+			bHigh--;
+		}
+
+		if (aLow == aHigh) {
+			for (int j = bLow; j < bHigh; j++) {
+				added[j] = true;
+			}
+		} else if (bLow == bHigh) {
+			for (int i = aLow; i < aHigh; i++) {
+				removed[i] = true;
+			}
+		} else {
+			long split = middleSnake(aLow, aHigh, bLow, bHigh);
+			if (split == -1) {
+				for (int i = aLow; i < aHigh; i++) {
+					removed[i] = true;
+				}
+				for (int j = bLow; j < bHigh; j++) {
+					added[j] = true;
+				}
+			} else {
+				int x = (int) (split >>> 32);
+				int y = (int) split;
+				compare(aLow, x, bLow, y);
+				compare(x, aHigh, y, bHigh);
+			}
+		}
+	}
+
+	// Returns the split point packed as (x << 32 | y) in absolute coordinates, or -1 if the sequences have nothing in common
+	private long middleSnake(int aLow, int aHigh, int bLow, int bHigh) {
+		int n = aHigh - aLow;
+		int m = bHigh - bLow;
+		int maxD = (n + m + 1) / 2;
+		int offset = maxD + 1;
+		for (int i = 0; i < 2 * maxD + 3; i++) {
+			forward[i] = -1;
+			backward[i] = -1;
+		}
+		forward[offset + 1] = 0;
+		backward[offset + 1] = 0;
+
+		int delta = n - m;
+		boolean isFrontOverlap = delta % 2 != 0; // the forward path checks for overlap when delta is odd
+		int k1Start = 0;
+		int k1End = 0;
+		int k2Start = 0;
+		int k2End = 0;
+		for (int d = 0; d < maxD; d++) {
+			for (int k1 = -d + k1Start; k1 <= d - k1End; k1 += 2) {
+				int k1Offset = offset + k1;
+				int x1;
+				if (k1 == -d || (k1 != d && forward[k1Offset - 1] < forward[k1Offset + 1])) {
+					x1 = forward[k1Offset + 1];
+				} else {
+					x1 = forward[k1Offset - 1] + 1;
+				}
+				int y1 = x1 - k1;
+				while (x1 < n && y1 < m && a[aLow + x1] == b[bLow + y1]) {
+					x1++;
+					y1++;
+				}
+				forward[k1Offset] = x1;
+				if (x1 > n) {
+					k1End += 2; // ran off the right
+				} else if (y1 > m) {
+					k1Start += 2; // ran off the bottom
+				} else if (isFrontOverlap) {
+					int k2Offset = offset + delta - k1;
+					if (k2Offset >= 0 && k2Offset < 2 * maxD + 3 && backward[k2Offset] != -1) {
+						if (x1 >= n - backward[k2Offset]) {
+							return (long) (aLow + x1) << 32 | (bLow + y1);
+						}
+					}
+				}
+			}
+
+			for (int k2 = -d + k2Start; k2 <= d - k2End; k2 += 2) {
+				int k2Offset = offset + k2;
+				int x2;
+				if (k2 == -d || (k2 != d && backward[k2Offset - 1] < backward[k2Offset + 1])) {
+					x2 = backward[k2Offset + 1];
+				} else {
+					x2 = backward[k2Offset - 1] + 1;
+				}
+				int y2 = x2 - k2;
+				while (x2 < n && y2 < m && a[aHigh - x2 - 1] == b[bHigh - y2 - 1]) {
+					x2++;
+					y2++;
+				}
+				backward[k2Offset] = x2;
+				if (x2 > n) {
+					k2End += 2;
+				} else if (y2 > m) {
+					k2Start += 2;
+				} else if (!isFrontOverlap) {
+					int k1Offset = offset + delta - k2;
+					if (k1Offset >= 0 && k1Offset < 2 * maxD + 3 && forward[k1Offset] != -1) {
+						int x1 = forward[k1Offset];
+						int y1 = offset + x1 - k1Offset;
+						if (x1 >= n - x2) {
+							return (long) (aLow + x1) << 32 | (bLow + y1);
+						}
+					}
+				}
+			}
+		}
+		return -1;
+	}
+}
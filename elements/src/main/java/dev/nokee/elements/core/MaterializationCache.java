@@ -0,0 +1,242 @@
+package dev.nokee.elements.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Represent a cache of materialized elements, keyed by {@link Element#getDigest() element digest}.
+ * An element is written once into a private scratch directory, later writes of the same element copy the materialized tree.
+ * The least recently used entries are evicted when the on-disk budget is exceeded.
+ */
+public final class MaterializationCache {
+	private final Path scratchDirectory;
+	private final long budgetInBytes;
+	private final Map<Digest, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long usedBytes = 0;
+
+	private MaterializationCache(Path scratchDirectory, long budgetInBytes) {
+		this.scratchDirectory = scratchDirectory;
+		this.budgetInBytes = budgetInBytes;
+	}
+
+	/**
+	 * Creates a cache materializing the elements in the specified scratch directory.
+	 *
+	 * @param scratchDirectory  the directory to materialize the cached elements, must be private to this cache
+	 * @param budgetInBytes  the maximum size of the content materialized in the scratch directory
+	 * @return a new cache
+	 */
+	public static MaterializationCache create(Path scratchDirectory, long budgetInBytes) {
+		return new MaterializationCache(scratchDirectory, budgetInBytes);
+	}
+
+	/**
+	 * Write the specified element to the directory, copying the cached materialization when available.
+	 *
+	 * @param element  the element to write
+	 * @param directory  the directory to write the element
+	 * @return a element representing the written files
+	 */
+	public FileSystemElement writeToDirectory(SourceElement element, Path directory) {
+		materialize(element, () -> WritePlan.of(element), directory);
+		return new FileSystemElement(directory, element);
+	}
+
+	/**
+	 * Write the specified element to the directory, copying the cached materialization when available.
+	 *
+	 * @param element  the element to write, i.e. the result of {@link LayoutElement#applyTo(Element)}
+	 * @param directory  the directory to write the element
+	 * @return a element representing the written files
+	 */
+	public FileSystemElement writeToDirectory(FileSystemElement element, Path directory) {
+		materialize(element, () -> WritePlan.of(element), directory);
+		return new FileSystemElement(directory, element.getNodes());
+	}
+
+	// The written element must represent the specified element (not the cached one), i.e. to keep its incremental changes
+	private void materialize(Element element, PlanFactory planFactory, Path directory) {
+		Digest key = element.getDigest();
+		Entry entry = acquire(key);
+		if (entry == null) {
+			WritePlan plan = planFactory.create();
+			long size = sizeOf(plan);
+			if (size > budgetInBytes) {
+				plan.writeToDirectory(directory);
+				return;
+			}
+
+			Path location = scratchDirectory.resolve(key + "-" + UUID.randomUUID());
+			try {
+				plan.writeToDirectory(location);
+			} catch (RuntimeException e) {
+				// Partially written, the location is not tracked by any entry
+				try {
+					deleteDirectory(location);
+				} catch (RuntimeException ex) {
+					e.addSuppressed(ex);
+				}
+				throw e;
+			}
+			entry = put(key, new Entry(location, size));
+			if (entry == null) {
+				// Cannot fit without evicting an entry in use
+				deleteDirectory(location);
+				plan.writeToDirectory(directory);
+				return;
+			}
+		}
+
+		try {
+			copyDirectory(entry.location, directory);
+		} finally {
+			release(entry);
+		}
+	}
+
+	private interface PlanFactory {
+		WritePlan create();
+	}
+
+	private synchronized Entry acquire(Digest key) {
+		Entry result = entries.get(key);
+		if (result != null) {
+			result.users++;
+		}
+		return result;
+	}
+
+	private synchronized void release(Entry entry) {
+		entry.users--;
+	}
+
+	private Entry put(Digest key, Entry entry) {
+		List<Entry> evicted = new ArrayList<>();
+		Entry result;
+		synchronized (this) {
+			result = entries.get(key);
+			if (result != null) {
+				evicted.add(entry); // materialized concurrently
+			} else {
+				Iterator<Entry> iter = entries.values().iterator(); // least recently used first
+				while (usedBytes + entry.size > budgetInBytes && iter.hasNext()) {
+					Entry candidate = iter.next();
+					if (candidate.users == 0) {
+						iter.remove();
+						usedBytes -= candidate.size;
+						evicted.add(candidate);
+					}
+				}
+
+				if (usedBytes + entry.size <= budgetInBytes) {
+					entries.put(key, entry);
+					usedBytes += entry.size;
+					result = entry;
+				}
+			}
+
+			if (result != null) {
+				result.users++;
+			}
+		}
+
+		for (Entry it : evicted) {
+			deleteDirectory(it.location);
+		}
+		return result;
+	}
+
+	/**
+	 * Evicts all entries not currently being copied.
+	 */
+	public void clear() {
+		List<Entry> evicted = new ArrayList<>();
+		synchronized (this) {
+			Iterator<Entry> iter = entries.values().iterator();
+			while (iter.hasNext()) {
+				Entry candidate = iter.next();
+				if (candidate.users == 0) {
+					iter.remove();
+					usedBytes -= candidate.size;
+					evicted.add(candidate);
+				}
+			}
+		}
+
+		for (Entry it : evicted) {
+			deleteDirectory(it.location);
+		}
+	}
+
+	private static long sizeOf(WritePlan plan) {
+		long result = 0;
+		for (WritePlan.Entry entry : plan.getEntries()) {
+			result += entry.getFile().getBytes().length;
+		}
+		return result;
+	}
+
+	private static void copyDirectory(Path source, Path destination) {
+		try {
+			Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+					Files.createDirectories(destination.resolve(source.relativize(dir).toString()));
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+					Files.copy(file, destination.resolve(source.relativize(file).toString()), StandardCopyOption.REPLACE_EXISTING);
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (IOException e) {
+			throw new UncheckedIOException(String.format("Unable to copy cached element to '%s'.", destination), e);
+		}
+	}
+
+	private static void deleteDirectory(Path directory) {
+		try {
+			Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+					Files.delete(file);
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+					if (exc != null) {
+						throw exc;
+					}
+					Files.delete(dir);
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (NoSuchFileException e) {
+			// already deleted
+		} catch (IOException e) {
+			throw new UncheckedIOException(String.format("Unable to delete cached element at '%s'.", directory), e);
+		}
+	}
+
+	private static final class Entry {
+		private final Path location;
+		private final long size;
+		private int users = 0; // guarded by the cache
+
+		private Entry(Path location, long size) {
+			this.location = location;
+			this.size = size;
+		}
+	}
+}
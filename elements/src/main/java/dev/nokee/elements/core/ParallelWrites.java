@@ -0,0 +1,112 @@
+package dev.nokee.elements.core;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Writes source files, or performs other file system operations on disjoint paths, concurrently using an executor.
+ * Failures are reported in the order the writes were added, regardless of the order in which they completed.
+ */
+final class ParallelWrites {
+	private final List<Runnable> writes = new ArrayList<>();
+	private volatile boolean cancelled = false;
+
+	// Assumes the parent directory of the target file exists
+	public ParallelWrites add(Path target, SourceFile file) {
+		writes.add(new Write(target, file));
+		return this;
+	}
+
+	// The operation must not touch the paths of the other operations
+	public ParallelWrites add(Runnable operation) {
+		writes.add(operation);
+		return this;
+	}
+
+	public void execute(Executor executor) {
+		Throwable failure = failureOf(submit(executor));
+		if (failure instanceof Error) {
+			throw (Error) failure;
+		} else if (failure != null) {
+			throw (RuntimeException) failure;
+		}
+	}
+
+	// Completes once every write completed, see cancel() to stop the pending writes
+	public CompletableFuture<Void> executeAsync(Executor executor) {
+		List<CompletableFuture<Void>> futures = submit(executor);
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).handle((ignored, e) -> {
+			Throwable failure = failureOf(futures);
+			if (failure != null) {
+				throw new CompletionException(failure);
+			}
+			return null;
+		});
+	}
+
+	// The writes not yet started are skipped, the running writes complete
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	private List<CompletableFuture<Void>> submit(Executor executor) {
+		List<CompletableFuture<Void>> futures = new ArrayList<>(writes.size());
+		for (Runnable write : writes) {
+			futures.add(CompletableFuture.runAsync(() -> {
+				if (!cancelled) {
+					write.run();
+				}
+			}, executor));
+		}
+		return futures;
+	}
+
+	// Joins every write, the first failure (in write order) suppresses the others
+	private static Throwable failureOf(List<CompletableFuture<Void>> futures) {
+		Throwable failure = null;
+		for (CompletableFuture<Void> future : futures) {
+			try {
+				future.join();
+			} catch (CompletionException e) {
+				Throwable cause = unwrap(e);
+				if (failure == null) {
+					failure = cause;
+				} else {
+					failure.addSuppressed(cause);
+				}
+			}
+		}
+		return failure;
+	}
+
+	private static Throwable unwrap(CompletionException e) {
+		Throwable cause = e.getCause();
+		if (cause instanceof RuntimeException || cause instanceof Error) {
+			return cause;
+		}
+		return e;
+	}
+
+	private static final class Write implements Runnable {
+		private final Path target;
+		private final SourceFile file;
+
+		private Write(Path target, SourceFile file) {
+			this.target = target;
+			this.file = file;
+		}
+
+		@Override
+		public void run() {
+			file.writeToExistingDirectory(target);
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package dev.nokee.elements.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Selects relative paths using include and exclude glob patterns, as described by {@link java.nio.file.FileSystem#getPathMatcher(String)}.
+ * Paths use {@literal /} as separator, all paths are included when there are no include patterns.
+ */
+final class PathFilter {
+	private final List<Pattern> includes;
+	private final List<Pattern> excludes;
+
+	PathFilter(List<String> includes, List<String> excludes) {
+		this.includes = compile(includes);
+		this.excludes = compile(excludes);
+	}
+
+	private static List<Pattern> compile(List<String> globs) {
+		List<Pattern> result = new ArrayList<>(globs.size());
+		for (String glob : globs) {
+			result.add(GlobPattern.compile(glob));
+		}
+		return result;
+	}
+
+	public boolean isIncluded(String path) {
+		return (includes.isEmpty() || matchesAny(includes, path)) && !matchesAny(excludes, path);
+	}
+
+	// A directory is excluded when the pattern matches the directory itself or everything below it, i.e. build/**
+	public boolean isExcludedDirectory(String path) {
+		return matchesAny(excludes, path) || matchesAny(excludes, path + "/");
+	}
+
+	private static boolean matchesAny(List<Pattern> patterns, String path) {
+		for (Pattern pattern : patterns) {
+			if (pattern.matcher(path).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,293 @@
+package dev.nokee.elements.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Represent the files of a source element indexed by path in a trie of interned path segments.
+ * A file is found in time proportional to the depth of its path, glob and extension queries only visit the matching part of the trie.
+ * Like the files on disk, a file written at the same path as an earlier file replaces it; the replaced files are reported as conflicts.
+ *
+ * <p>The index is built once per element, see {@link SourceElement#getPathIndex()}, and assumes the element is immutable.
+ */
+public final class PathIndex {
+	private final Node root = new Node();
+	private final Map<String, List<SourceFile>> filesByExtension;
+	private final List<Conflict> conflicts;
+
+	private PathIndex(List<SourceFile> files) {
+		Node[] nodes = new Node[files.size()];
+		Map<Node, List<SourceFile>> duplicates = new LinkedHashMap<>();
+		Map<Node, String> duplicatePaths = new HashMap<>();
+		for (int i = 0; i < nodes.length; i++) {
+			SourceFile file = files.get(i);
+			Node node = root;
+			List<String> segments = segmentsOf(file.getFilePath());
+			for (String segment : segments) {
+				node = node.child(segment.intern());
+			}
+			if (node.file != null) {
+				duplicates.computeIfAbsent(node, it -> new ArrayList<>(Collections.singletonList(it.file))).add(file);
+				duplicatePaths.put(node, String.join("/", segments));
+			}
+			node.file = file;
+			node.ordinal = i;
+			nodes[i] = node;
+		}
+
+		Map<String, List<SourceFile>> filesByExtension = new HashMap<>();
+		for (int i = 0; i < nodes.length; i++) {
+			if (nodes[i].ordinal == i) {
+				filesByExtension.computeIfAbsent(extensionOf(files.get(i).getName()), it -> new ArrayList<>()).add(files.get(i));
+			}
+		}
+		filesByExtension.replaceAll((extension, it) -> Collections.unmodifiableList(it));
+		this.filesByExtension = filesByExtension;
+
+		List<Conflict> conflicts = new ArrayList<>();
+		duplicates.forEach((node, it) -> conflicts.add(new Conflict(duplicatePaths.get(node), it)));
+		collectFileDirectoryConflicts(root, new StringBuilder(), conflicts);
+		this.conflicts = Collections.unmodifiableList(conflicts);
+	}
+
+	static PathIndex of(List<SourceFile> files) {
+		return new PathIndex(files);
+	}
+
+	/**
+	 * Returns the file written at the specified path.
+	 *
+	 * @param path  the file path relative to the element, using {@literal /} as separator
+	 * @return the source file written at the path or {@code null} if no file is written at the path
+	 */
+	public SourceFile find(String path) {
+		Node node = root;
+		for (String segment : segmentsOf(path)) {
+			node = node.children == null ? null : node.children.get(segment);
+			if (node == null) {
+				return null;
+			}
+		}
+		return node.file;
+	}
+
+	/**
+	 * Returns the files written with the specified extension.
+	 *
+	 * @param extension  the file extension without the leading dot, i.e. {@literal cpp}
+	 * @return the matching source files, in element order
+	 */
+	public List<SourceFile> withExtension(String extension) {
+		return filesByExtension.getOrDefault(extension, Collections.emptyList());
+	}
+
+	/**
+	 * Returns the files written at a path matching the specified glob pattern.
+	 *
+	 * @param glob  the glob pattern, as described by {@link java.nio.file.FileSystem#getPathMatcher(String)}
+	 * @return the matching source files, in element order
+	 * @see Query#glob(String)
+	 */
+	public List<SourceFile> select(String glob) {
+		return select(Query.glob(glob));
+	}
+
+	/**
+	 * Returns the files written at a path matching the specified query.
+	 *
+	 * @param query  the precompiled query
+	 * @return the matching source files, in element order
+	 */
+	public List<SourceFile> select(Query query) {
+		Node node = root;
+		StringBuilder path = new StringBuilder();
+		for (String segment : query.literalPrefix) {
+			node = node.children == null ? null : node.children.get(segment);
+			if (node == null) {
+				return Collections.emptyList();
+			}
+			path.append(path.length() == 0 ? "" : "/").append(segment);
+		}
+
+		List<Node> result = new ArrayList<>();
+		collect(node, path, query.literalPrefix.size(), query, result);
+		result.sort((a, b) -> Integer.compare(a.ordinal, b.ordinal));
+		List<SourceFile> files = new ArrayList<>(result.size());
+		for (Node it : result) {
+			files.add(it.file);
+		}
+		return files;
+	}
+
+	private static void collect(Node node, StringBuilder path, int depth, Query query, List<Node> result) {
+		if (node.file != null && query.pattern.matcher(path).matches()) {
+			result.add(node);
+		}
+		if (node.children != null && depth < query.maxDepth) {
+			int length = path.length();
+			for (Map.Entry<String, Node> entry : node.children.entrySet()) {
+				path.append(length == 0 ? "" : "/").append(entry.getKey());
+				collect(entry.getValue(), path, depth + 1, query, result);
+				path.setLength(length);
+			}
+		}
+	}
+
+	/**
+	 * {@return the paths written by more than one file, or written as a file and used as a directory, in element order}
+	 */
+	public List<Conflict> getConflicts() {
+		return conflicts;
+	}
+
+	private static void collectFileDirectoryConflicts(Node node, StringBuilder path, List<Conflict> result) {
+		if (node.children == null) {
+			return;
+		}
+		if (node.file != null) {
+			List<SourceFile> files = new ArrayList<>();
+			files.add(node.file);
+			collectFiles(node, files);
+			result.add(new Conflict(path.toString(), files));
+		}
+		int length = path.length();
+		for (Map.Entry<String, Node> entry : node.children.entrySet()) {
+			path.append(length == 0 ? "" : "/").append(entry.getKey());
+			collectFileDirectoryConflicts(entry.getValue(), path, result);
+			path.setLength(length);
+		}
+	}
+
+	private static void collectFiles(Node node, List<SourceFile> result) {
+		for (Node child : node.children.values()) {
+			if (child.file != null) {
+				result.add(child.file);
+			}
+			if (child.children != null) {
+				collectFiles(child, result);
+			}
+		}
+	}
+
+	private static List<String> segmentsOf(String path) {
+		List<String> result = new ArrayList<>();
+		int start = 0;
+		for (int i = 0; i <= path.length(); i++) {
+			if (i == path.length() || path.charAt(i) == '/' || path.charAt(i) == '\\') {
+				if (i > start && !(i - start == 1 && path.charAt(start) == '.')) {
+					result.add(path.substring(start, i));
+				}
+				start = i + 1;
+			}
+		}
+		return result;
+	}
+
+	private static String extensionOf(String name) {
+		int idx = name.lastIndexOf('.');
+		return idx == -1 ? "" : name.substring(idx + 1);
+	}
+
+	private static final class Node {
+		private Map<String, Node> children; // null for files
+		private SourceFile file;
+		private int ordinal;
+
+		private Node child(String segment) {
+			if (children == null) {
+				children = new HashMap<>(4);
+			}
+			return children.computeIfAbsent(segment, it -> new Node());
+		}
+	}
+
+	/**
+	 * Represent a glob pattern compiled for repeated queries.
+	 * The leading segments without wildcards are looked up directly, the pattern is only matched against the files below them.
+	 */
+	public static final class Query {
+		private static final String GLOB_META_CHARACTERS = "*?[{\\";
+		private final List<String> literalPrefix;
+		private final int maxDepth;
+		private final Pattern pattern;
+
+		private Query(List<String> literalPrefix, int maxDepth, Pattern pattern) {
+			this.literalPrefix = literalPrefix;
+			this.maxDepth = maxDepth;
+			this.pattern = pattern;
+		}
+
+		/**
+		 * Compiles the specified glob pattern.
+		 *
+		 * @param glob  the glob pattern, as described by {@link java.nio.file.FileSystem#getPathMatcher(String)}
+		 * @return a new query
+		 */
+		public static Query glob(String glob) {
+			String[] segments = glob.split("/");
+			List<String> literalPrefix = new ArrayList<>();
+			for (int i = 0; i < segments.length - 1; i++) { // the last segment is the file name
+				if (segments[i].chars().anyMatch(it -> GLOB_META_CHARACTERS.indexOf(it) != -1)) {
+					break;
+				}
+				literalPrefix.add(segments[i].intern());
+			}
+
+			// Without ** or groups, which may contain separators, the pattern cannot match deeper than its segment count
+			int maxDepth = glob.contains("**") || glob.contains("{") ? Integer.MAX_VALUE : segments.length;
+			return new Query(Collections.unmodifiableList(literalPrefix), maxDepth, GlobPattern.compile(glob));
+		}
+	}
+
+	/**
+	 * Represent a path written by more than one source file.
+	 */
+	public static final class Conflict {
+		private final String path;
+		private final List<SourceFile> files;
+
+		private Conflict(String path, List<SourceFile> files) {
+			this.path = path;
+			this.files = Collections.unmodifiableList(files);
+		}
+
+		/**
+		 * {@return the conflicting path, using {@literal /} as separator}
+		 */
+		public String getPath() {
+			return path;
+		}
+
+		/**
+		 * {@return the conflicting files, in element order when they share the same path, the file first when the path is also used as a directory}
+		 */
+		public List<SourceFile> getFiles() {
+			return files;
+		}
+
+		/**
+		 * {@return {@code true} if all the files are written at the same path with the same content, writing any of them gives the same result}
+		 */
+		public boolean isDuplicate() {
+			return isSamePath() && files.stream().allMatch(it -> it.getDigest().equals(files.get(0).getDigest()));
+		}
+
+		private boolean isSamePath() {
+			List<String> segments = segmentsOf(files.get(0).getFilePath());
+			return files.stream().allMatch(it -> segmentsOf(it.getFilePath()).equals(segments));
+		}
+
+		@Override
+		public String toString() {
+			if (!isSamePath()) {
+				return String.format("'%s' is both a file and a directory", path);
+			}
+			return String.format("'%s' is %s by %d files", path, isDuplicate() ? "duplicated" : "written", files.size());
+		}
+	}
+}
@@ -90,6 +90,14 @@ public abstract class ProjectElement extends Element {
 		};
 	}
 
+	@Override
+	protected Digest computeDigest() {
+		return Digest.builder().putString("project").putString(id().toString())
+			.putDigest(getMainElement().getDigest())
+			.putDigest(getTestElement().getDigest())
+			.build();
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
@@ -1,13 +1,12 @@
 package dev.nokee.elements.core;
 
-import java.io.IOException;
-import java.net.URI;
-import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributeView;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.nio.file.attribute.FileTime;
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
 
 /**
  * Represent an element containing zero or more source files.
@@ -18,36 +17,136 @@ import java.util.stream.Collectors;
 // TODO: We should probably rename this to SourceSetElement and use SourceElement as the general interface representing source
 //   We need to prevent nesting project element AKA project element should contains only SourceElement (the general concept of a source element)
 public abstract class SourceElement extends Element implements WritableElement {
+	private volatile Routing routing;
+	private volatile PathIndex index;
+
 	/**
 	 * {@return the source files associated with this element, possibly none.}
 	 */
 	public abstract List<SourceFile> getFiles();
 
+	/**
+	 * Returns the files of this element indexed by path, for lookups and queries without scanning the files.
+	 * Like the digest, the index is computed once and assumes the element is immutable.
+	 *
+	 * @return the path index of this element
+	 */
+	public final PathIndex getPathIndex() {
+		PathIndex result = index;
+		if (result == null) {
+			result = PathIndex.of(getFiles());
+			index = result;
+		}
+		return result;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
 	public final FileSystemElement writeToDirectory(Path directory) {
-		getFiles().forEach(it -> it.writeToDirectory(directory));
-		return new FileSystemElement(directory, this);
-	}
-
-	public final Object asZip(String path) {
-		return new Object() {
-			public void writeToDirectory(Path directory) throws IOException {
-				URI uri = URI.create("jar:file:" + directory.resolve(path));
-				try (FileSystem zipfs = FileSystems.newFileSystem(uri, Collections.singletonMap("create", "true"))) {
-					SourceElement.this.writeToDirectory(zipfs.getPath("/"));
-					Files.walkFileTree(zipfs.getPath("/"), new SimpleFileVisitor<Path>() {
-						@Override
-						public FileVisitResult visitFile(Path sourcePath, BasicFileAttributes attrs) throws IOException {
-							BasicFileAttributeView view = Files.getFileAttributeView(sourcePath, BasicFileAttributeView.class);
-							view.setTimes(FileTime.fromMillis(0), FileTime.fromMillis(0), FileTime.fromMillis(0));
-							return FileVisitResult.CONTINUE;
-						}
-					});
-				}
-			}
-		};
+		return WritePlan.of(this).writeToDirectory(directory);
+	}
+
+	/**
+	 * Write this element to the specified directory, writing the source files concurrently using the specified executor.
+	 * If any write fails, the failure of the first failing file (in element order) is thrown with the other failures suppressed.
+	 *
+	 * @param directory  the directory to write this element
+	 * @param executor  the executor to write the source files, i.e. {@link java.util.concurrent.ForkJoinPool#commonPool()}
+	 * @return a element representing the written files
+	 */
+	public final FileSystemElement writeToDirectory(Path directory, Executor executor) {
+		return WritePlan.of(this).writeToDirectory(directory, executor);
+	}
+
+	/**
+	 * Write this element to the specified directory in the background, writing the source files concurrently using the specified executor.
+	 * Cancelling the returned future stops the pending writes, the files already written are kept.
+	 * If any write fails, the future completes with the failure of the first failing file (in element order) with the other failures suppressed.
+	 *
+	 * @param directory  the directory to write this element
+	 * @param executor  the executor to write the source files, i.e. {@link java.util.concurrent.ForkJoinPool#commonPool()}
+	 * @return a future completing with a element representing the written files
+	 */
+	@Override
+	public final CompletableFuture<FileSystemElement> writeToDirectoryAsync(Path directory, Executor executor) {
+		return WritePlan.of(this).writeToDirectoryAsync(directory, executor);
+	}
+
+	/**
+	 * Synchronize the specified directory with this element, writing only the files that are missing or changed.
+	 * Files that are not part of this element are kept.
+	 *
+	 * @param directory  the directory to synchronize
+	 * @return a element representing the synchronized files
+	 * @see WritePlan#syncToDirectory(Path, boolean)
+	 */
+	public final FileSystemElement syncToDirectory(Path directory) {
+		return syncToDirectory(directory, false);
+	}
+
+	/**
+	 * Synchronize the specified directory with this element, writing only the files that are missing or changed.
+	 *
+	 * @param directory  the directory to synchronize
+	 * @param deleteStaleFiles  {@code true} to delete the files that are not part of this element, {@code false} to keep them
+	 * @return a element representing the synchronized files
+	 * @see WritePlan#syncToDirectory(Path, boolean)
+	 */
+	public final FileSystemElement syncToDirectory(Path directory, boolean deleteStaleFiles) {
+		return WritePlan.of(this).syncToDirectory(directory, deleteStaleFiles);
+	}
+
+	/**
+	 * Compare the specified directory with the files of this element, i.e. to assert a build did not modify the sources.
+	 *
+	 * @param directory  the directory to verify
+	 * @return the added, missing and modified files of the directory
+	 * @see WritePlan#verify(Path)
+	 */
+	public final VerificationResult verify(Path directory) {
+		return WritePlan.of(this).verify(directory);
+	}
+
+	/**
+	 * Returns this element as a zip archive to write at the specified path.
+	 *
+	 * @param path  the archive path, relative to the directory to write
+	 * @return a zip element for this element
+	 */
+	public final ZipElement asZip(String path) {
+		return new ZipElement(path, WritePlan.of(this));
+	}
+
+	/**
+	 * Returns this element as a tar archive to write at the specified path.
+	 *
+	 * @param path  the archive path, relative to the directory to write
+	 * @return a tar element for this element
+	 */
+	public final TarElement asTar(String path) {
+		return new TarElement(path, WritePlan.of(this), false);
+	}
+
+	/**
+	 * Returns this element as a gzip compressed tar archive to write at the specified path.
+	 *
+	 * @param path  the archive path, relative to the directory to write
+	 * @return a tar element for this element
+	 */
+	public final TarElement asTarGz(String path) {
+		return new TarElement(path, WritePlan.of(this), true);
+	}
+
+	/**
+	 * Returns a read-only file system view of this element, nothing is written to disk.
+	 * The files are served from memory at the path they would be written, relative to the root directory of the file system.
+	 * The file system should be closed once no longer used.
+	 *
+	 * @return a new read-only file system
+	 */
+	public final FileSystem asFileSystem() {
+		return ElementFileSystemProvider.INSTANCE.newFileSystem(WritePlan.of(this));
 	}
 
 	/**
@@ -66,20 +165,87 @@ public abstract class SourceElement extends Element implements WritableElement {
 		return ofElements(Arrays.asList(elements));
 	}
 
+	/**
+	 * Returns a source element that contains the union of the given elements.
+	 * The source files are flattened once and shared with every caller.
+	 * Files written at the same path overwrite each other in order, use {@link PathIndex#getConflicts()} to detect them.
+	 *
+	 * @param elements  the elements to compose
+	 * @return a new source element containing the source files of all specified elements.
+	 */
 	public static SourceElement ofElements(List<SourceElement> elements) {
-		return new SourceElement() {
-			@Override
-			public List<SourceFile> getFiles() {
-				return elements.stream().flatMap(it -> it.getFiles().stream()).collect(Collectors.toList());
-			}
+		return new CompositeSourceElement(elements);
+	}
 
-			@Override
-			public void accept(Visitor visitor) {
-				for (SourceElement element : elements) {
-					element.accept(visitor);
-				}
-			}
-		};
+	/**
+	 * Returns a source element containing all the files of the specified directory.
+	 *
+	 * @param directory  the directory to read
+	 * @return a new source element containing the files of the directory, sorted by path
+	 * @see #fromDirectory(Path, List, List)
+	 */
+	public static SourceElement fromDirectory(Path directory) {
+		return fromDirectory(directory, Collections.emptyList(), Collections.emptyList());
+	}
+
+	/**
+	 * Returns a source element containing the files of the specified directory, the inverse of {@link #writeToDirectory(Path)}.
+	 * The patterns are glob patterns, as described by {@link java.nio.file.FileSystem#getPathMatcher(String)}, matched against the path relative to the directory using {@literal /} as separator.
+	 * Excluded directories, i.e. {@literal build/**}, are not walked.
+	 * The files are read eagerly and concurrently, their content is decoded as UTF-8.
+	 * Binary files, i.e. containing a {@literal NUL} byte or malformed UTF-8, are skipped.
+	 *
+	 * @param directory  the directory to read
+	 * @param includes  the patterns of the files to include, all files are included if empty
+	 * @param excludes  the patterns of the files and directories to exclude
+	 * @return a new source element containing the files of the directory, sorted by path
+	 */
+	public static SourceElement fromDirectory(Path directory, List<String> includes, List<String> excludes) {
+		return DirectoryReader.read(directory, includes, excludes);
+	}
+
+	/**
+	 * Returns a source element containing the files of the specified zip stream, without extracting the archive.
+	 * The stream is read until its end but not closed, the entries are decoded as UTF-8 on first access of their content.
+	 *
+	 * @param inStream  the zip archive to read
+	 * @param includes  the patterns of the files to include, all files are included if empty
+	 * @param excludes  the patterns of the files and directories to exclude
+	 * @return a new source element containing the files of the archive, sorted by path
+	 * @see #fromDirectory(Path, List, List)
+	 */
+	public static SourceElement fromZip(ZipInputStream inStream, List<String> includes, List<String> excludes) {
+		return ArchiveReader.read(inStream, includes, excludes);
+	}
+
+	/**
+	 * Returns a source element containing the files of the specified zip or jar file, without extracting the archive.
+	 * The entries are read and decoded as UTF-8 on first access of their content, the archive must stay open until then.
+	 *
+	 * @param zipFile  the zip archive to read, i.e. a {@link java.util.jar.JarFile}
+	 * @param includes  the patterns of the files to include, all files are included if empty
+	 * @param excludes  the patterns of the files and directories to exclude
+	 * @return a new source element containing the files of the archive, sorted by path
+	 * @see #fromDirectory(Path, List, List)
+	 */
+	public static SourceElement fromZip(ZipFile zipFile, List<String> includes, List<String> excludes) {
+		return ArchiveReader.read(zipFile, includes, excludes);
+	}
+
+	/**
+	 * Returns a source element containing the files below the specified classpath directory, i.e. sample projects shipped as test resources.
+	 * The directory can be in a jar or a directory of the classpath, the paths are relative to the specified directory.
+	 * Files in a jar are decoded as UTF-8 on first access of their content.
+	 *
+	 * @param classLoader  the class loader to find the directory
+	 * @param directory  the classpath directory, i.e. {@literal samples/app}
+	 * @param includes  the patterns of the files to include, all files are included if empty
+	 * @param excludes  the patterns of the files and directories to exclude
+	 * @return a new source element containing the files of the directory, sorted by path
+	 * @see #fromDirectory(Path, List, List)
+	 */
+	public static SourceElement fromClasspath(ClassLoader classLoader, String directory, List<String> includes, List<String> excludes) {
+		return ArchiveReader.readClasspath(classLoader, directory, includes, excludes);
 	}
 
 	/**
@@ -103,6 +269,35 @@ public abstract class SourceElement extends Element implements WritableElement {
 		visitor.visit(this);
 	}
 
+	@Override
+	protected Digest computeDigest() {
+		Digest.Builder builder = Digest.builder().putString("source");
+		for (SourceFile file : getFiles()) {
+			builder.putString(file.getFilePath()).putDigest(file.getDigest());
+		}
+		return builder.build();
+	}
+
+	// Computed once per registry, like the digest the routing assumes the element is immutable
+	final Map<String, SourceElement> routeBy(FileTypeRegistry registry) {
+		Routing result = routing;
+		if (result == null || result.registry != registry) {
+			result = new Routing(registry, registry.partition(this));
+			routing = result;
+		}
+		return result.sourcesByDirectory;
+	}
+
+	private static final class Routing {
+		private final FileTypeRegistry registry;
+		private final Map<String, SourceElement> sourcesByDirectory;
+
+		private Routing(FileTypeRegistry registry, Map<String, SourceElement> sourcesByDirectory) {
+			this.registry = registry;
+			this.sourcesByDirectory = sourcesByDirectory;
+		}
+	}
+
 	@Override
 	public final int hashCode() {
 		return Objects.hash(getFiles());
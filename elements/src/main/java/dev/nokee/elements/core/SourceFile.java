@@ -34,10 +34,20 @@ package dev.nokee.elements.core;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
 import java.util.Arrays;
 import java.util.Objects;
 import java.util.function.UnaryOperator;
@@ -48,12 +58,23 @@ import static java.util.stream.Collectors.joining;
 public final class SourceFile {
 	private final String path;
 	private final String name;
-	private final String content;
+	private final Content content;
+	private final Charset charset;
+	private final LineEnding lineEnding;
+	private volatile Object bytes; // byte[] or SoftReference<byte[]> depending on the content retention
+	private volatile long size; // published by digest
+	private volatile Digest digest;
 
 	public SourceFile(String path, String name, String content) {
+		this(path, name, new LoadedContent(content), StandardCharsets.UTF_8, LineEnding.PRESERVE);
+	}
+
+	private SourceFile(String path, String name, Content content, Charset charset, LineEnding lineEnding) {
 		this.path = path;
 		this.name = name;
 		this.content = content;
+		this.charset = Objects.requireNonNull(charset, "'charset' must not be null");
+		this.lineEnding = Objects.requireNonNull(lineEnding, "'lineEnding' must not be null");
 	}
 
 	public String getPath() {
@@ -69,15 +90,128 @@ public final class SourceFile {
 	}
 
 	public SourceFile withName(String name) {
-		return new SourceFile(path, name, content);
+		return new SourceFile(path, name, content, charset, lineEnding);
 	}
 
 	public SourceFile withName(UnaryOperator<String> transformer) {
-		return new SourceFile(path, transformer.apply(name), content);
+		return new SourceFile(path, transformer.apply(name), content, charset, lineEnding);
 	}
 
+	/**
+	 * {@return the content of this file, loading it if needed}
+	 */
 	public String getContent() {
-		return content;
+		return content.get();
+	}
+
+	/**
+	 * {@return the charset used to encode the content of this file, defaults to UTF-8}
+	 */
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * Returns a copy of this source file encoding its content using the specified charset.
+	 *
+	 * @param charset  the charset to encode the content
+	 * @return a new source file
+	 */
+	public SourceFile withCharset(Charset charset) {
+		return new SourceFile(path, name, content, charset, lineEnding);
+	}
+
+	/**
+	 * {@return the line ending policy used when writing the content of this file, defaults to {@link LineEnding#PRESERVE}}
+	 */
+	public LineEnding getLineEnding() {
+		return lineEnding;
+	}
+
+	/**
+	 * Returns a copy of this source file writing its content using the specified line ending policy.
+	 *
+	 * @param lineEnding  the line ending policy to use
+	 * @return a new source file
+	 */
+	public SourceFile withLineEnding(LineEnding lineEnding) {
+		return new SourceFile(path, name, content, charset, lineEnding);
+	}
+
+	// The bytes written to disk, encoded once and shared, callers must not modify the array
+	byte[] getBytes() {
+		byte[] result = cachedBytes();
+		if (result == null) {
+			result = lineEnding.apply(content.get()).getBytes(charset);
+			bytes = content.retention == Retention.SOFT ? new SoftReference<>(result) : result;
+		}
+		return result;
+	}
+
+	// The bytes written to disk without keeping them, i.e. to stream many files, reuses the bytes already encoded
+	byte[] encode() {
+		byte[] result = cachedBytes();
+		return result == null ? lineEnding.apply(content.get()).getBytes(charset) : result;
+	}
+
+	@SuppressWarnings("unchecked")
+	private byte[] cachedBytes() {
+		Object cached = bytes;
+		return cached instanceof SoftReference ? ((SoftReference<byte[]>) cached).get() : (byte[]) cached;
+	}
+
+	/**
+	 * Returns the digest of the bytes written for this file.
+	 * The digest is computed once and accounts for the charset and line ending policy.
+	 *
+	 * @return the content digest of this file
+	 */
+	public Digest getDigest() {
+		Digest result = digest;
+		if (result == null) {
+			result = computeDigest();
+		}
+		return result;
+	}
+
+	// The number of bytes written to disk, computed with the digest without keeping the bytes
+	long getSize() {
+		getDigest();
+		return size;
+	}
+
+	// Streams the encoded content into the digest, reuses the bytes already encoded
+	private Digest computeDigest() {
+		byte[] cached = cachedBytes();
+		if (cached != null) {
+			size = cached.length;
+			return digest = Digest.of(cached);
+		}
+
+		MessageDigest messageDigest = Digest.newMessageDigest();
+		CharsetEncoder encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+		CharBuffer in = CharBuffer.wrap(lineEnding.apply(content.get()));
+		ByteBuffer out = ByteBuffer.allocate(8192);
+		long count = 0;
+		CoderResult result;
+		do {
+			result = encoder.encode(in, out, true);
+			count += drain(out, messageDigest);
+		} while (result.isOverflow());
+		do {
+			result = encoder.flush(out);
+			count += drain(out, messageDigest);
+		} while (result.isOverflow());
+		size = count;
+		return digest = Digest.of(messageDigest);
+	}
+
+	private static int drain(ByteBuffer buffer, MessageDigest messageDigest) {
+		buffer.flip();
+		int result = buffer.remaining();
+		messageDigest.update(buffer);
+		buffer.clear();
+		return result;
 	}
 
 	public Path writeToDirectory(Path base) {
@@ -90,19 +224,43 @@ public final class SourceFile {
 	public void writeToFile(Path file) {
 		try {
 			Files.createDirectories(file.getParent());
-			Files.write(file, content.getBytes(Charset.defaultCharset()));
+			write(file, getBytes());
 		} catch (IOException ex) {
 			throw new UncheckedIOException(String.format("Unable to create source file at '%s'.", file), ex);
 		}
 	}
 
+	// Assumes the parent directory exists
+	void writeToExistingDirectory(Path file) {
+		try {
+			write(file, getBytes());
+		} catch (IOException ex) {
+			throw new UncheckedIOException(String.format("Unable to create source file at '%s'.", file), ex);
+		}
+	}
+
+	private static void write(Path file, byte[] bytes) throws IOException {
+		try {
+			Files.write(file, bytes, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		} catch (FileAlreadyExistsException e) {
+			// Never write through a link into the content store
+			ContentStore.unlinkIfShared(file);
+			Files.write(file, bytes);
+		}
+	}
+
 	public SourceFile withPath(UnaryOperator<Path> transformer) {
 		Path newPath = transformer.apply(Paths.get(path).resolve(name));
-		return new SourceFile(newPath.getParent().toString(), newPath.getFileName().toString(), content);
+		Path parent = newPath.getParent();
+		return new SourceFile(parent == null ? "" : parent.toString(), newPath.getFileName().toString(), content, charset, lineEnding);
 	}
 
 	public SourceFile withContent(UnaryOperator<String> transformer) {
-		return new SourceFile(path, name, transformer.apply(content));
+		if (content instanceof LazyContent) {
+			// Keep the transformed content lazy as well
+			return new SourceFile(path, name, new LazyContent(() -> transformer.apply(content.get()), content.retention), charset, lineEnding);
+		}
+		return new SourceFile(path, name, new LoadedContent(transformer.apply(content.get())), charset, lineEnding);
 	}
 
 	private static String firstContentLine(String content) {
@@ -117,12 +275,28 @@ public final class SourceFile {
 		if (o == null || getClass() != o.getClass())
 			return false;
 		SourceFile that = (SourceFile) o;
-		return Objects.equals(path, that.path) && Objects.equals(name, that.name) && Objects.equals(content, that.content);
+		return Objects.equals(path, that.path) && Objects.equals(name, that.name) && charset.equals(that.charset) && lineEnding == that.lineEnding && hasSameContent(that);
+	}
+
+	private boolean hasSameContent(SourceFile that) {
+		if (content == that.content) {
+			return true;
+		}
+
+		// Equal content always encodes to the same digest, a different digest avoids scanning the content
+		// Equal digests are not enough, different content may encode to the same bytes (i.e. line endings)
+		Digest thisDigest = digest;
+		Digest thatDigest = that.digest;
+		if (thisDigest != null && thatDigest != null && !thisDigest.equals(thatDigest)) {
+			return false;
+		}
+		return Objects.equals(content.get(), that.content.get());
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(path, name, content);
+		// The digest is consistent with equals, equal content encodes to the same digest
+		return Objects.hash(path, name, content.get() == null ? null : getDigest());
 	}
 
 	@Override
@@ -130,7 +304,7 @@ public final class SourceFile {
 		return "SourceFile{" +
 			"path='" + path + '\'' +
 			", name='" + name + '\'' +
-			", content='" + firstContentLine(content) + '\'' +
+			", content='" + content.describe() + '\'' +
 			'}';
 	}
 
@@ -153,10 +327,171 @@ public final class SourceFile {
 		return new SourceFile(path == null ? "" : path.toString(), name, content);
 	}
 
+	/**
+	 * Returns a source file represented by the specified source path whose content is loaded on first access.
+	 * The loaded content is kept for the lifetime of the source file.
+	 *
+	 * @param sourcePath  the file path (relative to the source set directory)
+	 * @param loader  the content loader, called at most once
+	 * @return a new source file
+	 */
+	public static SourceFile lazyFrom(Path sourcePath, ContentLoader loader) {
+		return lazyFrom(sourcePath, loader, Retention.STRONG);
+	}
+
+	/**
+	 * Returns a source file represented by the specified source path whose content is loaded on first access.
+	 *
+	 * @param sourcePath  the file path (relative to the source set directory)
+	 * @param loader  the content loader
+	 * @param retention  the retention of the loaded content
+	 * @return a new source file
+	 */
+	public static SourceFile lazyFrom(Path sourcePath, ContentLoader loader, Retention retention) {
+		assert !sourcePath.isAbsolute() : "'sourcePath' must be relative";
+		String name = sourcePath.getFileName().toString();
+		Path path = sourcePath.getParent();
+		return new SourceFile(path == null ? "" : path.toString(), name, new LazyContent(loader, retention), StandardCharsets.UTF_8, LineEnding.PRESERVE);
+	}
+
 	public interface ContentLoader {
 		String load() throws IOException;
 	}
 
+	/**
+	 * Represent how long the content of a lazily loaded source file is kept in memory.
+	 */
+	public enum Retention {
+		/**
+		 * Keeps the content once loaded.
+		 */
+		STRONG,
+
+		/**
+		 * Allows the content to be discarded under memory pressure, the content is loaded again on next access.
+		 */
+		SOFT
+	}
+
+	private static abstract class Content {
+		final Retention retention;
+
+		Content(Retention retention) {
+			this.retention = retention;
+		}
+
+		abstract String get();
+
+		abstract String describe();
+	}
+
+	private static final class LoadedContent extends Content {
+		private final String value;
+
+		LoadedContent(String value) {
+			super(Retention.STRONG);
+			this.value = value;
+		}
+
+		@Override
+		String get() {
+			return value;
+		}
+
+		@Override
+		String describe() {
+			return firstContentLine(value);
+		}
+	}
+
+	private static final class LazyContent extends Content {
+		private final ContentLoader loader;
+		private volatile Object value; // String or SoftReference<String> depending on the retention
+
+		LazyContent(ContentLoader loader, Retention retention) {
+			super(retention);
+			this.loader = loader;
+		}
+
+		@Override
+		String get() {
+			String result = cachedValue();
+			if (result == null) {
+				synchronized (this) { // concurrent writes must not load the content twice
+					result = cachedValue();
+					if (result == null) {
+						try {
+							result = loader.load();
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+						value = retention == Retention.SOFT ? new SoftReference<>(result) : result;
+					}
+				}
+			}
+			return result;
+		}
+
+		@SuppressWarnings("unchecked")
+		private String cachedValue() {
+			Object cached = value;
+			return cached instanceof SoftReference ? ((SoftReference<String>) cached).get() : (String) cached;
+		}
+
+		@Override
+		String describe() {
+			String result = cachedValue();
+			return result == null ? "<not loaded>" : firstContentLine(result);
+		}
+	}
+
+	/**
+	 * Represent the line ending policy applied when writing the content of a source file.
+	 */
+	public enum LineEnding {
+		/**
+		 * Writes the line endings as found in the content.
+		 */
+		PRESERVE {
+			@Override
+			String apply(String content) {
+				return content;
+			}
+		},
+
+		/**
+		 * Writes all line endings as {@literal \n}.
+		 */
+		LF {
+			@Override
+			String apply(String content) {
+				return content.indexOf('\r') == -1 ? content : content.replace("\r\n", "\n");
+			}
+		},
+
+		/**
+		 * Writes all line endings as {@literal \r\n}.
+		 */
+		CRLF {
+			@Override
+			String apply(String content) {
+				return LF.apply(content).replace("\n", "\r\n");
+			}
+		},
+
+		/**
+		 * Writes all line endings using the platform line separator.
+		 */
+		NATIVE {
+			@Override
+			String apply(String content) {
+				return System.lineSeparator().equals("\n") ? LF.apply(content) : CRLF.apply(content);
+			}
+		};
+
+		abstract String apply(String content);
+	}
+
 	public static Builder builder() {
 		return new Builder();
 	}
@@ -164,7 +499,9 @@ public final class SourceFile {
 	public static final class Builder {
 		private String path;
 		private String name;
-		private String content;
+		private Content content;
+		private Charset charset = StandardCharsets.UTF_8;
+		private LineEnding lineEnding = LineEnding.PRESERVE;
 
 		public Builder withPath(String path) {
 			this.path = path;
@@ -177,21 +514,43 @@ public final class SourceFile {
 		}
 
 		public Builder withContent(String content) {
-			this.content = content;
+			this.content = new LoadedContent(content);
 			return this;
 		}
 
 		public Builder withContent(ContentLoader loader) {
 			try {
-				this.content = loader.load();
+				this.content = new LoadedContent(loader.load());
 			} catch (IOException e) {
 				throw new UncheckedIOException(e);
 			}
 			return this;
 		}
 
+		/**
+		 * Uses the specified loader to load the content on first access instead of when building the source file.
+		 *
+		 * @param loader  the content loader
+		 * @param retention  the retention of the loaded content
+		 * @return this builder
+		 */
+		public Builder withLazyContent(ContentLoader loader, Retention retention) {
+			this.content = new LazyContent(loader, retention);
+			return this;
+		}
+
+		public Builder withCharset(Charset charset) {
+			this.charset = charset;
+			return this;
+		}
+
+		public Builder withLineEnding(LineEnding lineEnding) {
+			this.lineEnding = lineEnding;
+			return this;
+		}
+
 		public SourceFile build() {
-			return new SourceFile(path, name, content);
+			return new SourceFile(path, name, content == null ? new LoadedContent(null) : content, charset, lineEnding);
 		}
 	}
 }
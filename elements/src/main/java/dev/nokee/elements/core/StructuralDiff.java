@@ -0,0 +1,128 @@
+package dev.nokee.elements.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static dev.nokee.elements.core.SourceFileElement.ofFile;
+
+/**
+ * Derives the incremental changes between two source elements in linear time.
+ * Files are indexed by path, the files found at both paths are preserved or modified.
+ * The remaining files are indexed by content digest, an identical content at a new path is moved or renamed instead of deleted and added.
+ * Moved files written with a different charset, line ending or raw content are relocated to keep the revised file attributes.
+ * Changes of the same kind are grouped into a single transform, i.e. all additions are a single {@code add}.
+ */
+final class StructuralDiff {
+	private final List<SourceFile> preservedFiles = new ArrayList<>();
+	private final List<SourceFile> modifiedFiles = new ArrayList<>();
+	private final List<SourceFile> modifications = new ArrayList<>();
+	private final Map<String, List<SourceFile>> movedFilesByDestination = new LinkedHashMap<>();
+	private final List<IncrementalElement.Transform> renames = new ArrayList<>();
+	private final List<SourceFile> relocatedFiles = new ArrayList<>();
+	private final List<SourceFile> relocations = new ArrayList<>();
+	private final List<SourceFile> deletedFiles = new ArrayList<>();
+	private final List<SourceFile> addedFiles = new ArrayList<>();
+
+	private StructuralDiff() {}
+
+	public static List<IncrementalElement.Transform> between(SourceElement original, SourceElement revised) {
+		StructuralDiff diff = new StructuralDiff();
+		diff.compare(filesOf(original), filesOf(revised));
+		return diff.toTransforms();
+	}
+
+	// Later files overwrite earlier ones like on disk
+	private static Map<String, SourceFile> filesOf(SourceElement element) {
+		List<SourceFile> files = element.getFiles();
+		Map<String, SourceFile> result = new LinkedHashMap<>(files.size() * 4 / 3 + 1);
+		for (SourceFile file : files) {
+			result.put(keyOf(file), file);
+		}
+		return result;
+	}
+
+	static String keyOf(SourceFile file) {
+		return file.getFilePath().replace('\\', '/');
+	}
+
+	private void compare(Map<String, SourceFile> originalFiles, Map<String, SourceFile> revisedFiles) {
+		Map<Digest, Deque<SourceFile>> removedFilesByDigest = new HashMap<>();
+		for (Map.Entry<String, SourceFile> entry : originalFiles.entrySet()) {
+			SourceFile revisedFile = revisedFiles.get(entry.getKey());
+			if (revisedFile == null) {
+				removedFilesByDigest.computeIfAbsent(entry.getValue().getDigest(), it -> new ArrayDeque<>()).add(entry.getValue());
+			} else if (revisedFile.getDigest().equals(entry.getValue().getDigest())) {
+				preservedFiles.add(entry.getValue());
+			} else {
+				modifiedFiles.add(entry.getValue());
+				modifications.add(revisedFile);
+			}
+		}
+
+		for (Map.Entry<String, SourceFile> entry : revisedFiles.entrySet()) {
+			if (originalFiles.containsKey(entry.getKey())) {
+				continue;
+			}
+
+			SourceFile revisedFile = entry.getValue();
+			Deque<SourceFile> candidates = removedFilesByDigest.get(revisedFile.getDigest());
+			SourceFile originalFile = candidates == null ? null : candidates.poll();
+			if (originalFile == null) {
+				addedFiles.add(revisedFile);
+			} else if (!hasSameAttributes(originalFile, revisedFile)) {
+				relocatedFiles.add(originalFile);
+				relocations.add(revisedFile);
+			} else if (originalFile.getName().equals(revisedFile.getName())) {
+				movedFilesByDestination.computeIfAbsent(revisedFile.getPath(), it -> new ArrayList<>()).add(originalFile);
+			} else if (directoryOf(originalFile).equals(directoryOf(revisedFile))) {
+				String name = revisedFile.getName();
+				renames.add(IncrementalElement.rename(ofFile(originalFile), it -> name));
+			} else {
+				relocatedFiles.add(originalFile);
+				relocations.add(revisedFile);
+			}
+		}
+
+		for (Deque<SourceFile> files : removedFilesByDigest.values()) {
+			deletedFiles.addAll(files);
+		}
+	}
+
+	// Files with the same digest may differ in how their content is written, i.e. a line ending policy
+	private static boolean hasSameAttributes(SourceFile originalFile, SourceFile revisedFile) {
+		return originalFile.getCharset().equals(revisedFile.getCharset()) && originalFile.getLineEnding() == revisedFile.getLineEnding() && originalFile.getContent().equals(revisedFile.getContent());
+	}
+
+	private static String directoryOf(SourceFile file) {
+		String key = keyOf(file);
+		int idx = key.lastIndexOf('/');
+		return idx == -1 ? "" : key.substring(0, idx);
+	}
+
+	private List<IncrementalElement.Transform> toTransforms() {
+		List<IncrementalElement.Transform> result = new ArrayList<>();
+		if (!preservedFiles.isEmpty()) {
+			result.add(IncrementalElement.preserve(SourceElement.ofFiles(preservedFiles)));
+		}
+		if (!modifiedFiles.isEmpty()) {
+			result.add(IncrementalElement.modify(SourceElement.ofFiles(modifiedFiles), SourceElement.ofFiles(modifications)));
+		}
+		movedFilesByDestination.forEach((destination, files) -> result.add(IncrementalElement.move(SourceElement.ofFiles(files), destination)));
+		result.addAll(renames);
+		if (!relocatedFiles.isEmpty()) {
+			result.add(IncrementalElement.relocate(relocatedFiles, relocations));
+		}
+		if (!deletedFiles.isEmpty()) {
+			result.add(IncrementalElement.delete(SourceElement.ofFiles(deletedFiles)));
+		}
+		if (!addedFiles.isEmpty()) {
+			result.add(IncrementalElement.add(SourceElement.ofFiles(addedFiles)));
+		}
+		return result;
+	}
+}
@@ -0,0 +1,184 @@
+package dev.nokee.elements.core;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Represent an element written as a tar archive, optionally gzip compressed.
+ * The entries are streamed in sorted order with a fixed modification time so the same element always produces the same archive.
+ * Paths that do not fit the ustar header are written using a pax extended header.
+ */
+public final class TarElement {
+	private static final int BLOCK_SIZE = 512;
+	private static final long CONSTANT_TIME_FOR_TAR_ENTRIES = 0L; // seconds since epoch, in UTC unlike zip entries
+	private static final int NAME_LENGTH = 100;
+	private static final int PREFIX_LENGTH = 155;
+	private static final byte REGULAR_FILE = '0';
+	private static final byte DIRECTORY = '5';
+	private static final byte PAX_HEADER = 'x';
+	private final String path;
+	private final WritePlan plan;
+	private final boolean compressed;
+
+	TarElement(String path, WritePlan plan, boolean compressed) {
+		this.path = path;
+		this.plan = plan;
+		this.compressed = compressed;
+	}
+
+	/**
+	 * Write the tar archive to the specified directory.
+	 *
+	 * @param directory  the directory to write the archive
+	 * @return the path to the written archive
+	 */
+	public Path writeToDirectory(Path directory) {
+		Path file = directory.resolve(path);
+		try {
+			Files.createDirectories(file.getParent());
+			try (OutputStream outStream = Files.newOutputStream(file)) {
+				writeTo(outStream);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(String.format("Unable to create tar archive at '%s'.", file), e);
+		}
+		return file;
+	}
+
+	/**
+	 * Write the tar archive to the specified stream, the stream is not closed.
+	 * Only one file content is held in memory at a time.
+	 *
+	 * @param outStream  the stream to write the archive
+	 * @throws IOException if the archive cannot be written
+	 */
+	public void writeTo(OutputStream outStream) throws IOException {
+		if (compressed) {
+			// GZIPOutputStream writes a zero modification time in its header, keeping the archive reproducible
+			GZIPOutputStream gzipStream = new GZIPOutputStream(outStream, 8192);
+			writeEntries(gzipStream);
+			gzipStream.finish();
+		} else {
+			writeEntries(outStream);
+		}
+	}
+
+	private void writeEntries(OutputStream outStream) throws IOException {
+		OutputStream tarStream = new BufferedOutputStream(outStream, 8192);
+		for (Map.Entry<String, SourceFile> entry : plan.getArchiveEntries().entrySet()) {
+			if (entry.getValue() == null) {
+				writeHeader(tarStream, entry.getKey(), DIRECTORY, 0755, 0);
+			} else {
+				byte[] bytes = entry.getValue().encode();
+				writeHeader(tarStream, entry.getKey(), REGULAR_FILE, 0644, bytes.length);
+				writePadded(tarStream, bytes);
+			}
+		}
+		tarStream.write(new byte[BLOCK_SIZE * 2]); // end-of-archive marker
+		tarStream.flush();
+	}
+
+	private static void writeHeader(OutputStream outStream, String name, byte type, int mode, long size) throws IOException {
+		byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		byte[] prefix = new byte[0];
+		if (nameBytes.length > NAME_LENGTH) {
+			int idx = splitIndex(nameBytes);
+			if (idx == -1) {
+				writePaxHeader(outStream, name);
+				nameBytes = Arrays.copyOf(nameBytes, NAME_LENGTH); // readers use the pax path instead
+			} else {
+				prefix = Arrays.copyOf(nameBytes, idx);
+				nameBytes = Arrays.copyOfRange(nameBytes, idx + 1, nameBytes.length);
+			}
+		}
+
+		byte[] header = new byte[BLOCK_SIZE];
+		System.arraycopy(nameBytes, 0, header, 0, nameBytes.length);
+		putOctal(header, 100, 8, mode);
+		putOctal(header, 108, 8, 0); // uid
+		putOctal(header, 116, 8, 0); // gid
+		putOctal(header, 124, 12, size);
+		putOctal(header, 136, 12, CONSTANT_TIME_FOR_TAR_ENTRIES);
+		header[156] = type;
+		System.arraycopy("ustar\00000".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 8);
+		System.arraycopy(prefix, 0, header, 345, prefix.length);
+
+		// Checksum is computed with the checksum field filled with spaces
+		Arrays.fill(header, 148, 156, (byte) ' ');
+		long checksum = 0;
+		for (byte b : header) {
+			checksum += b & 0xff;
+		}
+		putOctal(header, 148, 7, checksum);
+		header[155] = ' ';
+		outStream.write(header);
+	}
+
+	// Returns the index of the separator splitting the name into a ustar prefix and name, or -1 if none fits
+	private static int splitIndex(byte[] nameBytes) {
+		// Skip the trailing slash of directories, the name cannot be empty
+		for (int i = Math.min(PREFIX_LENGTH, nameBytes.length - 2); i > 0; i--) {
+			if (nameBytes[i] == '/' && nameBytes.length - i - 1 <= NAME_LENGTH) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static void writePaxHeader(OutputStream outStream, String name) throws IOException {
+		byte[] record = paxRecord("path", name);
+		writeHeader(outStream, "././@PaxHeader", PAX_HEADER, 0644, record.length);
+		writePadded(outStream, record);
+	}
+
+	// Each record is "<length> <key>=<value>\n" where the length includes itself
+	private static byte[] paxRecord(String key, String value) {
+		int length = (" " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8).length;
+		int total = length + String.valueOf(length).length();
+		if (String.valueOf(total).length() != String.valueOf(length).length()) {
+			total = length + String.valueOf(total).length();
+		}
+		return (total + " " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static void writePadded(OutputStream outStream, byte[] bytes) throws IOException {
+		outStream.write(bytes);
+		int remainder = bytes.length % BLOCK_SIZE;
+		if (remainder != 0) {
+			outStream.write(new byte[BLOCK_SIZE - remainder]);
+		}
+	}
+
+	// Zero-padded octal number followed by a NUL terminator
+	private static void putOctal(byte[] header, int offset, int length, long value) {
+		String octal = Long.toOctalString(value);
+		int digits = length - 1;
+		for (int i = 0; i < digits; i++) {
+			int idx = octal.length() - digits + i;
+			header[offset + i] = (byte) (idx < 0 ? '0' : octal.charAt(idx));
+		}
+		header[offset + digits] = 0;
+	}
+
+	/**
+	 * {@return the tar archive bytes}
+	 */
+	public byte[] toByteArray() {
+		ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+		try {
+			writeTo(outStream);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // in-memory
+		}
+		return outStream.toByteArray();
+	}
+}
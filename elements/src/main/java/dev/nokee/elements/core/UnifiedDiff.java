@@ -0,0 +1,288 @@
+package dev.nokee.elements.core;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Generates git-style unified diff patches between two elements.
+ * The patch applies to the directory where the original element is written, i.e. using {@code git apply} or {@code patch -p1}.
+ * Files moved without changes are reported as renames instead of a deletion and an addition.
+ */
+public final class UnifiedDiff {
+	private static final int CONTEXT_LINES = 3;
+	private static final String NO_NEWLINE_MARKER = "\\ No newline at end of file";
+	private static final String NULL_BLOB_ID = "0000000";
+
+	private UnifiedDiff() {}
+
+	/**
+	 * Returns a patch file transforming the original element into the revised element.
+	 *
+	 * @param path  the patch file path
+	 * @param original  the original sources
+	 * @param revised  the revised sources
+	 * @return a source file containing the patch, empty if both elements are identical
+	 */
+	public static SourceFile between(String path, SourceElement original, SourceElement revised) {
+		return SourceFile.of(path, diff(WritePlan.of(original), WritePlan.of(revised)));
+	}
+
+	/**
+	 * Returns a patch file transforming the original element into the revised element.
+	 *
+	 * @param path  the patch file path
+	 * @param original  the original sources, i.e. the result of {@link LayoutElement#applyTo(Element)}
+	 * @param revised  the revised sources
+	 * @return a source file containing the patch, empty if both elements are identical
+	 */
+	public static SourceFile between(String path, FileSystemElement original, FileSystemElement revised) {
+		return SourceFile.of(path, diff(WritePlan.of(original), WritePlan.of(revised)));
+	}
+
+	private static String diff(WritePlan original, WritePlan revised) {
+		Map<String, SourceFile> originalFiles = filesOf(original);
+		Map<String, SourceFile> revisedFiles = filesOf(revised);
+
+		// Pair the removed files with the added files of identical content
+		Map<Digest, Deque<String>> removedFilesByDigest = new HashMap<>();
+		for (Map.Entry<String, SourceFile> entry : originalFiles.entrySet()) {
+			if (!revisedFiles.containsKey(entry.getKey())) {
+				removedFilesByDigest.computeIfAbsent(entry.getValue().getDigest(), it -> new ArrayDeque<>()).add(entry.getKey());
+			}
+		}
+		Map<String, String> renames = new HashMap<>(); // original path by revised path
+		for (Map.Entry<String, SourceFile> entry : revisedFiles.entrySet()) {
+			if (!originalFiles.containsKey(entry.getKey())) {
+				Deque<String> candidates = removedFilesByDigest.get(entry.getValue().getDigest());
+				if (candidates != null && !candidates.isEmpty()) {
+					renames.put(entry.getKey(), candidates.poll());
+				}
+			}
+		}
+
+		// Sorted by the path of the file, like git
+		Map<String, String> sections = new TreeMap<>();
+		for (Map.Entry<String, SourceFile> entry : originalFiles.entrySet()) {
+			SourceFile revisedFile = revisedFiles.get(entry.getKey());
+			if (revisedFile == null) {
+				if (!renames.containsValue(entry.getKey())) {
+					sections.put(entry.getKey(), deletedFile(entry.getKey(), entry.getValue()));
+				}
+			} else if (!revisedFile.getDigest().equals(entry.getValue().getDigest())) {
+				sections.put(entry.getKey(), modifiedFile(entry.getKey(), entry.getValue(), revisedFile));
+			}
+		}
+		for (Map.Entry<String, SourceFile> entry : revisedFiles.entrySet()) {
+			String originalPath = renames.get(entry.getKey());
+			if (originalPath != null) {
+				sections.put(originalPath, renamedFile(originalPath, entry.getKey()));
+			} else if (!originalFiles.containsKey(entry.getKey())) {
+				sections.put(entry.getKey(), newFile(entry.getKey(), entry.getValue()));
+			}
+		}
+		return String.join("", sections.values());
+	}
+
+	// Later files overwrite earlier ones like on disk
+	private static Map<String, SourceFile> filesOf(WritePlan plan) {
+		Map<String, SourceFile> result = new LinkedHashMap<>();
+		for (WritePlan.Entry entry : plan.getEntries()) {
+			result.put(entry.getPath(), entry.getFile());
+		}
+		return result;
+	}
+
+	private static String deletedFile(String path, SourceFile file) {
+		StringBuilder result = new StringBuilder();
+		result.append("diff --git a/").append(path).append(" b/").append(path).append('\n');
+		result.append("deleted file mode 100644\n");
+		result.append("index ").append(blobIdOf(file)).append("..").append(NULL_BLOB_ID).append('\n');
+		Lines lines = Lines.of(file);
+		if (!lines.isEmpty()) {
+			result.append("--- a/").append(path).append('\n');
+			result.append("+++ /dev/null\n");
+			appendHunks(result, lines, Lines.EMPTY);
+		}
+		return result.toString();
+	}
+
+	private static String newFile(String path, SourceFile file) {
+		StringBuilder result = new StringBuilder();
+		result.append("diff --git a/").append(path).append(" b/").append(path).append('\n');
+		result.append("new file mode 100644\n");
+		result.append("index ").append(NULL_BLOB_ID).append("..").append(blobIdOf(file)).append('\n');
+		Lines lines = Lines.of(file);
+		if (!lines.isEmpty()) {
+			result.append("--- /dev/null\n");
+			result.append("+++ b/").append(path).append('\n');
+			appendHunks(result, Lines.EMPTY, lines);
+		}
+		return result.toString();
+	}
+
+	private static String renamedFile(String originalPath, String revisedPath) {
+		return "diff --git a/" + originalPath + " b/" + revisedPath + "\n"
+			+ "similarity index 100%\n"
+			+ "rename from " + originalPath + "\n"
+			+ "rename to " + revisedPath + "\n";
+	}
+
+	private static String modifiedFile(String path, SourceFile original, SourceFile revised) {
+		StringBuilder result = new StringBuilder();
+		result.append("diff --git a/").append(path).append(" b/").append(path).append('\n');
+		result.append("index ").append(blobIdOf(original)).append("..").append(blobIdOf(revised)).append(" 100644\n");
+		result.append("--- a/").append(path).append('\n');
+		result.append("+++ b/").append(path).append('\n');
+		appendHunks(result, Lines.of(original), Lines.of(revised));
+		return result.toString();
+	}
+
+	// Abbreviated git blob identifier, lets git fall back to a three-way merge and tells empty files apart for patch
+	private static String blobIdOf(SourceFile file) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			byte[] bytes = file.getBytes();
+			digest.update(("blob " + bytes.length + "\0").getBytes(StandardCharsets.US_ASCII));
+			digest.update(bytes);
+			StringBuilder result = new StringBuilder();
+			for (byte b : Arrays.copyOf(digest.digest(), 4)) {
+				result.append(String.format("%02x", b));
+			}
+			return result.substring(0, NULL_BLOB_ID.length());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e); // every Java platform supports SHA-1
+		}
+	}
+
+	private static void appendHunks(StringBuilder result, Lines original, Lines revised) {
+		List<LineDiff.Operation> operations = LineDiff.diff(original.keys, revised.keys);
+
+		int index = 0;
+		int i = 0; // original line at index
+		int j = 0; // revised line at index
+		while (index < operations.size()) {
+			// Find the next change and the end of its hunk, merging changes separated by less than twice the context
+			int firstChange = index;
+			while (firstChange < operations.size() && operations.get(firstChange) == LineDiff.Operation.EQUAL) {
+				firstChange++;
+			}
+			if (firstChange == operations.size()) {
+				return;
+			}
+			int lastChange = firstChange;
+			int unchanged = 0;
+			for (int k = firstChange; k < operations.size() && unchanged <= 2 * CONTEXT_LINES; k++) {
+				if (operations.get(k) == LineDiff.Operation.EQUAL) {
+					unchanged++;
+				} else {
+					lastChange = k;
+					unchanged = 0;
+				}
+			}
+
+			int start = Math.max(index, firstChange - CONTEXT_LINES);
+			int end = Math.min(operations.size(), lastChange + 1 + CONTEXT_LINES);
+			for (; index < start; index++) {
+				i++;
+				j++; // only unchanged lines before the hunk
+			}
+			appendHunk(result, operations, start, end, i, j, original, revised);
+			for (; index < end; index++) {
+				if (operations.get(index) != LineDiff.Operation.INSERT) {
+					i++;
+				}
+				if (operations.get(index) != LineDiff.Operation.DELETE) {
+					j++;
+				}
+			}
+		}
+	}
+
+	private static void appendHunk(StringBuilder result, List<LineDiff.Operation> operations, int start, int end, int i, int j, Lines original, Lines revised) {
+		StringBuilder body = new StringBuilder();
+		int originalCount = 0;
+		int revisedCount = 0;
+		for (int k = start; k < end; k++) {
+			switch (operations.get(k)) {
+				case EQUAL:
+					original.appendLine(body, ' ', i++);
+					j++;
+					originalCount++;
+					revisedCount++;
+					break;
+				case DELETE:
+					original.appendLine(body, '-', i++);
+					originalCount++;
+					break;
+				case INSERT:
+					revised.appendLine(body, '+', j++);
+					revisedCount++;
+					break;
+			}
+		}
+
+		result.append("@@ -").append(rangeOf(i - originalCount, originalCount)).append(" +").append(rangeOf(j - revisedCount, revisedCount)).append(" @@\n");
+		result.append(body);
+	}
+
+	// The start line is one-based, or the line before the hunk for empty ranges
+	private static String rangeOf(int start, int count) {
+		if (count == 1) {
+			return String.valueOf(start + 1);
+		}
+		return (count == 0 ? start : start + 1) + "," + count;
+	}
+
+	private static final class Lines {
+		private static final Lines EMPTY = new Lines(new ArrayList<>(), false);
+		private final List<String> lines;
+		private final List<String> keys; // the last line without newline only matches another last line without newline
+		private final boolean missingNewline;
+
+		private Lines(List<String> lines, boolean missingNewline) {
+			this.lines = lines;
+			this.missingNewline = missingNewline;
+			this.keys = new ArrayList<>(lines);
+			if (missingNewline) {
+				keys.set(keys.size() - 1, keys.get(keys.size() - 1) + NO_NEWLINE_MARKER);
+			}
+		}
+
+		public static Lines of(SourceFile file) {
+			String content = new String(file.getBytes(), file.getCharset());
+			List<String> result = new ArrayList<>();
+			int start = 0;
+			int idx;
+			while ((idx = content.indexOf('\n', start)) != -1) {
+				result.add(content.substring(start, idx));
+				start = idx + 1;
+			}
+			if (start < content.length()) {
+				result.add(content.substring(start));
+				return new Lines(result, true);
+			}
+			return new Lines(result, false);
+		}
+
+		public boolean isEmpty() {
+			return lines.isEmpty();
+		}
+
+		public void appendLine(StringBuilder result, char prefix, int index) {
+			result.append(prefix).append(lines.get(index)).append('\n');
+			if (missingNewline && index == lines.size() - 1) {
+				result.append(NO_NEWLINE_MARKER).append('\n');
+			}
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package dev.nokee.elements.core;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represent the differences between a directory and the files of an element, see {@link WritePlan#verify(java.nio.file.Path)}.
+ * The paths are relative to the verified directory, use {@literal /} as separator and are sorted.
+ */
+public final class VerificationResult {
+	private final List<String> addedFiles;
+	private final List<String> missingFiles;
+	private final List<String> modifiedFiles;
+
+	VerificationResult(List<String> addedFiles, List<String> missingFiles, List<String> modifiedFiles) {
+		this.addedFiles = Collections.unmodifiableList(addedFiles);
+		this.missingFiles = Collections.unmodifiableList(missingFiles);
+		this.modifiedFiles = Collections.unmodifiableList(modifiedFiles);
+	}
+
+	/**
+	 * {@return {@code true} if the directory contains exactly the files of the element}
+	 */
+	public boolean isUpToDate() {
+		return addedFiles.isEmpty() && missingFiles.isEmpty() && modifiedFiles.isEmpty();
+	}
+
+	/**
+	 * {@return the files found in the directory that are not part of the element}
+	 */
+	public List<String> getAddedFiles() {
+		return addedFiles;
+	}
+
+	/**
+	 * {@return the files of the element not found in the directory}
+	 */
+	public List<String> getMissingFiles() {
+		return missingFiles;
+	}
+
+	/**
+	 * {@return the files of the element found in the directory with a different content}
+	 */
+	public List<String> getModifiedFiles() {
+		return modifiedFiles;
+	}
+
+	@Override
+	public String toString() {
+		if (isUpToDate()) {
+			return "up-to-date";
+		}
+
+		StringBuilder result = new StringBuilder();
+		append(result, "added", addedFiles);
+		append(result, "missing", missingFiles);
+		append(result, "modified", modifiedFiles);
+		return result.toString();
+	}
+
+	private static void append(StringBuilder result, String kind, List<String> paths) {
+		for (String path : paths) {
+			if (result.length() > 0) {
+				result.append(System.lineSeparator());
+			}
+			result.append(kind).append(": ").append(path);
+		}
+	}
+}
@@ -19,6 +19,15 @@ public abstract class WorkspaceElement extends Element {
 
 	public abstract List<ProjectElement> getProjects();
 
+	@Override
+	protected Digest computeDigest() {
+		Digest.Builder builder = Digest.builder().putString("workspace");
+		for (ProjectElement project : getProjects()) {
+			builder.putDigest(project.getDigest());
+		}
+		return builder.build();
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
@@ -1,6 +1,8 @@
 package dev.nokee.elements.core;
 
 import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Represent an element that can be written to disk.
@@ -12,4 +14,16 @@ public interface WritableElement {
 	 * @param directory  the directory to write this element
 	 */
 	FileSystemElement writeToDirectory(Path directory);
+
+	/**
+	 * Write this element to the specified directory in the background using the specified executor.
+	 * Cancelling the returned future before the write starts skips the write.
+	 *
+	 * @param directory  the directory to write this element
+	 * @param executor  the executor to write this element, i.e. {@link java.util.concurrent.ForkJoinPool#commonPool()}
+	 * @return a future completing with a element representing the written files
+	 */
+	default CompletableFuture<FileSystemElement> writeToDirectoryAsync(Path directory, Executor executor) {
+		return CompletableFuture.supplyAsync(() -> writeToDirectory(directory), executor);
+	}
 }
@@ -0,0 +1,413 @@
+package dev.nokee.elements.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.IntStream;
+
+/**
+ * Represent the files of an element resolved to their target paths, relative to the directory to write.
+ * Each distinct directory is created once, parent-first, before writing the files grouped by directory.
+ * A plan can be reused to write the same element to many directories without recomputing the target paths.
+ */
+public final class WritePlan implements WritableElement {
+	private final List<FileSystemElement.Node> nodes;
+	private final List<String> directories;
+	private final List<Entry> entries;
+
+	private WritePlan(List<FileSystemElement.Node> nodes) {
+		List<Entry> entries = new ArrayList<>();
+		for (FileSystemElement.Node node : nodes) {
+			String location = toRelativePath(node.getLocation());
+			for (SourceFile file : node.getSources().getFiles()) {
+				entries.add(new Entry(join(location, file.getPath()), file));
+			}
+		}
+		entries.sort(Comparator.comparing(Entry::getDirectory).thenComparing(it -> it.getFile().getName()));
+
+		Set<String> directories = new TreeSet<>();
+		for (Entry entry : entries) {
+			String directory = entry.getDirectory();
+			while (!directory.isEmpty() && directories.add(directory)) {
+				directory = parentOf(directory);
+			}
+		}
+
+		this.nodes = nodes;
+		this.directories = Collections.unmodifiableList(new ArrayList<>(directories));
+		this.entries = Collections.unmodifiableList(entries);
+	}
+
+	/**
+	 * Returns a write plan for the specified source element.
+	 *
+	 * @param element  the element to plan
+	 * @return a new write plan
+	 */
+	public static WritePlan of(SourceElement element) {
+		return new WritePlan(Collections.singletonList(new FileSystemElement.Node(Paths.get(""), element)));
+	}
+
+	/**
+	 * Returns a write plan for the specified file system element, i.e. the result of {@link LayoutElement#applyTo(Element)}.
+	 *
+	 * @param element  the element to plan
+	 * @return a new write plan
+	 */
+	public static WritePlan of(FileSystemElement element) {
+		return new WritePlan(element.getNodes());
+	}
+
+	/**
+	 * {@return the directories to create, relative to the target directory, parent directories first}
+	 */
+	public List<String> getDirectories() {
+		return directories;
+	}
+
+	/**
+	 * {@return the files to write, grouped by directory}
+	 */
+	public List<Entry> getEntries() {
+		return entries;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public FileSystemElement writeToDirectory(Path directory) {
+		createDirectories(directory);
+		for (Entry entry : entries) {
+			entry.getFile().writeToExistingDirectory(directory.resolve(entry.getPath()));
+		}
+		return new FileSystemElement(directory, nodes);
+	}
+
+	/**
+	 * Write the planned files to the specified directory, writing the files concurrently using the specified executor.
+	 * The directories are created before any file is written.
+	 *
+	 * @param directory  the directory to write the files
+	 * @param executor  the executor to write the files
+	 * @return a element representing the written files
+	 * @see SourceElement#writeToDirectory(Path, Executor)
+	 */
+	public FileSystemElement writeToDirectory(Path directory, Executor executor) {
+		createDirectories(directory);
+		ParallelWrites writes = writesOf(directory);
+		writes.execute(executor);
+		return new FileSystemElement(directory, nodes);
+	}
+
+	/**
+	 * Write the planned files to the specified directory in the background, writing the files concurrently using the specified executor.
+	 * Cancelling the returned future stops the pending writes, the files already written are kept.
+	 *
+	 * @param directory  the directory to write the files
+	 * @param executor  the executor to write the files
+	 * @return a future completing with a element representing the written files
+	 * @see SourceElement#writeToDirectoryAsync(Path, Executor)
+	 */
+	@Override
+	public CompletableFuture<FileSystemElement> writeToDirectoryAsync(Path directory, Executor executor) {
+		ParallelWrites writes = writesOf(directory);
+
+		CompletableFuture<FileSystemElement> result = CompletableFuture.runAsync(() -> {
+			if (!writes.isCancelled()) {
+				createDirectories(directory);
+			}
+		}, executor).thenCompose(ignored -> writes.executeAsync(executor)).thenApply(ignored -> new FileSystemElement(directory, nodes));
+		result.whenComplete((ignored, e) -> {
+			if (result.isCancelled()) {
+				writes.cancel();
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Synchronize the specified directory with the planned files.
+	 * Only the files that are missing or differ in size or content are written, preserving the timestamps of the unchanged files.
+	 *
+	 * @param directory  the directory to synchronize
+	 * @param deleteStaleFiles  {@code true} to delete the files not part of this plan, {@code false} to keep them
+	 * @return a element representing the synchronized files
+	 */
+	public FileSystemElement syncToDirectory(Path directory, boolean deleteStaleFiles) {
+		if (deleteStaleFiles) {
+			deleteStaleFiles(directory);
+		}
+		createDirectories(directory);
+		for (Entry entry : entries) {
+			Path file = directory.resolve(entry.getPath());
+			if (!hasSameContent(file, entry.getFile())) {
+				entry.getFile().writeToExistingDirectory(file);
+			}
+		}
+		return new FileSystemElement(directory, nodes);
+	}
+
+	/**
+	 * Compare the specified directory with the planned files, without modifying the directory.
+	 * Files of a different size are reported as modified without reading them, the other files are hashed concurrently.
+	 * Files whose size and modification time did not change since a previous verification are not hashed again.
+	 *
+	 * @param directory  the directory to verify
+	 * @return the differences between the directory and the planned files
+	 */
+	public VerificationResult verify(Path directory) {
+		Map<String, SourceFile> expectedFiles = new LinkedHashMap<>(); // later files overwrite earlier ones like on disk
+		for (Entry entry : entries) {
+			expectedFiles.put(entry.getPath(), entry.getFile());
+		}
+		Map<String, BasicFileAttributes> actualFiles = filesOf(directory);
+
+		List<String> addedFiles = new ArrayList<>();
+		List<String> missingFiles = new ArrayList<>();
+		List<String> candidates = new ArrayList<>();
+		for (Map.Entry<String, SourceFile> entry : expectedFiles.entrySet()) {
+			BasicFileAttributes attributes = actualFiles.get(entry.getKey());
+			if (attributes == null) {
+				missingFiles.add(entry.getKey());
+			} else {
+				candidates.add(entry.getKey());
+			}
+		}
+		for (String path : actualFiles.keySet()) {
+			if (!expectedFiles.containsKey(path)) {
+				addedFiles.add(path);
+			}
+		}
+
+		boolean[] isModified = new boolean[candidates.size()];
+		IntStream.range(0, isModified.length).parallel().forEach(i -> {
+			String path = candidates.get(i);
+			BasicFileAttributes attributes = actualFiles.get(path);
+			SourceFile expectedFile = expectedFiles.get(path);
+			if (!attributes.isRegularFile() || attributes.size() != expectedFile.getSize()) {
+				isModified[i] = true;
+			} else {
+				try {
+					isModified[i] = !FileDigestCache.INSTANCE.digestOf(directory.resolve(path), attributes).equals(expectedFile.getDigest());
+				} catch (IOException e) {
+					throw new UncheckedIOException(String.format("Unable to read file at '%s'.", directory.resolve(path)), e);
+				}
+			}
+		});
+		List<String> modifiedFiles = new ArrayList<>();
+		for (int i = 0; i < isModified.length; i++) {
+			if (isModified[i]) {
+				modifiedFiles.add(candidates.get(i));
+			}
+		}
+
+		Collections.sort(addedFiles);
+		Collections.sort(missingFiles);
+		Collections.sort(modifiedFiles);
+		return new VerificationResult(addedFiles, missingFiles, modifiedFiles);
+	}
+
+	// All files below the directory keyed by relative path, none if the directory does not exist
+	private static Map<String, BasicFileAttributes> filesOf(Path base) {
+		Map<String, BasicFileAttributes> result = new HashMap<>();
+		if (!Files.isDirectory(base)) {
+			return result;
+		}
+
+		try {
+			Files.walkFileTree(base, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+					result.put(relativePathOf(base, file), attrs);
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (IOException e) {
+			throw new UncheckedIOException(String.format("Unable to read directory at '%s'.", base), e);
+		}
+		return result;
+	}
+
+	private static boolean hasSameContent(Path file, SourceFile sourceFile) {
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+			return attributes.isRegularFile() && attributes.size() == sourceFile.getBytes().length && Digest.of(file).equals(sourceFile.getDigest());
+		} catch (NoSuchFileException e) {
+			return false;
+		} catch (IOException e) {
+			throw new UncheckedIOException(String.format("Unable to read file at '%s'.", file), e);
+		}
+	}
+
+	private void deleteStaleFiles(Path base) {
+		if (!Files.isDirectory(base)) {
+			return;
+		}
+
+		Set<String> files = new HashSet<>();
+		for (Entry entry : entries) {
+			files.add(entry.getPath());
+		}
+		Set<String> directories = new HashSet<>(this.directories);
+
+		try {
+			Files.walkFileTree(base, new SimpleFileVisitor<Path>() {
+				private final Deque<Boolean> hasDeletedFiles = new ArrayDeque<>();
+
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+					hasDeletedFiles.push(false);
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+					if (!files.contains(relativePathOf(base, file))) {
+						Files.delete(file);
+						hasDeletedFiles.pop();
+						hasDeletedFiles.push(true);
+					}
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+					if (exc != null) {
+						throw exc;
+					}
+
+					// Only remove the directories we emptied
+					boolean deleted = hasDeletedFiles.pop();
+					if (deleted && !dir.equals(base) && !directories.contains(relativePathOf(base, dir)) && isEmptyDirectory(dir)) {
+						Files.delete(dir);
+						hasDeletedFiles.pop();
+						hasDeletedFiles.push(true);
+					}
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (IOException e) {
+			throw new UncheckedIOException(String.format("Unable to delete stale files in '%s'.", base), e);
+		}
+	}
+
+	private static boolean isEmptyDirectory(Path dir) throws IOException {
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+			return !stream.iterator().hasNext();
+		}
+	}
+
+	private static String relativePathOf(Path base, Path file) {
+		return toRelativePath(base.relativize(file));
+	}
+
+	// Directory entries (trailing slash) map to null, later files overwrite earlier ones like on disk
+	// Only the last file composed at each path is written, like writing the entries in order
+	private ParallelWrites writesOf(Path directory) {
+		Map<String, SourceFile> files = new LinkedHashMap<>();
+		for (Entry entry : entries) {
+			files.put(entry.getPath(), entry.getFile());
+		}
+
+		ParallelWrites result = new ParallelWrites();
+		files.forEach((path, file) -> result.add(directory.resolve(path), file));
+		return result;
+	}
+
+	SortedMap<String, SourceFile> getArchiveEntries() {
+		SortedMap<String, SourceFile> result = new TreeMap<>();
+		for (String directory : directories) {
+			result.put(directory + "/", null);
+		}
+		for (Entry entry : entries) {
+			result.put(entry.getPath(), entry.getFile());
+		}
+		return result;
+	}
+
+	FileSystemElement writeResult(Path directory) {
+		return new FileSystemElement(directory, nodes);
+	}
+
+	void createDirectories(Path base) {
+		try {
+			Files.createDirectories(base);
+			for (String directory : directories) {
+				Path path = base.resolve(directory);
+				try {
+					Files.createDirectory(path);
+				} catch (FileAlreadyExistsException e) {
+					if (!Files.isDirectory(path)) {
+						throw e;
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(String.format("Unable to create directories in '%s'.", base), e);
+		}
+	}
+
+	/**
+	 * Represent a planned file write.
+	 */
+	public static final class Entry {
+		private final String directory;
+		private final String path;
+		private final SourceFile file;
+
+		private Entry(String directory, SourceFile file) {
+			this.directory = directory;
+			this.path = join(directory, file.getName());
+			this.file = file;
+		}
+
+		/**
+		 * {@return the directory of the file, relative to the target directory, using {@literal /} as separator}
+		 */
+		public String getDirectory() {
+			return directory;
+		}
+
+		/**
+		 * {@return the file path, relative to the target directory, using {@literal /} as separator}
+		 */
+		public String getPath() {
+			return path;
+		}
+
+		/**
+		 * {@return the source file to write}
+		 */
+		public SourceFile getFile() {
+			return file;
+		}
+	}
+
+	private static String toRelativePath(Path path) {
+		String result = "";
+		for (Path name : path) {
+			result = join(result, name.toString());
+		}
+		return result;
+	}
+
+	private static String join(String first, String second) {
+		String path = second.replace('\\', '/');
+		if (first.isEmpty()) {
+			return path;
+		} else if (path.isEmpty()) {
+			return first;
+		}
+		return first + "/" + path;
+	}
+
+	private static String parentOf(String path) {
+		int idx = path.lastIndexOf('/');
+		return idx == -1 ? "" : path.substring(0, idx);
+	}
+}
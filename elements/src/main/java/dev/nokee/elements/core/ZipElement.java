@@ -0,0 +1,116 @@
+package dev.nokee.elements.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.GregorianCalendar;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Represent an element written as a zip archive.
+ * The entries are streamed in sorted order with a fixed timestamp so the same element always produces the same archive.
+ */
+public final class ZipElement {
+	// Same constant as Gradle's reproducible archives, the DOS epoch does not support earlier dates
+	private static final long CONSTANT_TIME_FOR_ZIP_ENTRIES = new GregorianCalendar(1980, 1, 1, 0, 0, 0).getTimeInMillis();
+	private final String path;
+	private final WritePlan plan;
+	private final int compressionLevel;
+
+	ZipElement(String path, WritePlan plan) {
+		this(path, plan, Deflater.DEFAULT_COMPRESSION);
+	}
+
+	private ZipElement(String path, WritePlan plan, int compressionLevel) {
+		this.path = path;
+		this.plan = plan;
+		this.compressionLevel = compressionLevel;
+	}
+
+	/**
+	 * Returns a copy of this zip element using the specified compression level.
+	 * Level {@link Deflater#NO_COMPRESSION} stores the entries uncompressed.
+	 *
+	 * @param compressionLevel  the compression level, from {@link Deflater#NO_COMPRESSION} to {@link Deflater#BEST_COMPRESSION}, or {@link Deflater#DEFAULT_COMPRESSION}
+	 * @return a new zip element
+	 */
+	public ZipElement withCompressionLevel(int compressionLevel) {
+		if ((compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) && compressionLevel != Deflater.DEFAULT_COMPRESSION) {
+			throw new IllegalArgumentException("invalid compression level: " + compressionLevel);
+		}
+		return new ZipElement(path, plan, compressionLevel);
+	}
+
+	/**
+	 * Write the zip archive to the specified directory.
+	 *
+	 * @param directory  the directory to write the archive
+	 * @return the path to the written archive
+	 */
+	public Path writeToDirectory(Path directory) {
+		Path file = directory.resolve(path);
+		try {
+			Files.createDirectories(file.getParent());
+			try (OutputStream outStream = Files.newOutputStream(file)) {
+				writeTo(outStream);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(String.format("Unable to create zip archive at '%s'.", file), e);
+		}
+		return file;
+	}
+
+	/**
+	 * Write the zip archive to the specified stream, the stream is not closed.
+	 *
+	 * @param outStream  the stream to write the archive
+	 * @throws IOException if the archive cannot be written
+	 */
+	public void writeTo(OutputStream outStream) throws IOException {
+		ZipOutputStream zipStream = new ZipOutputStream(outStream);
+		zipStream.setLevel(compressionLevel);
+		for (Map.Entry<String, SourceFile> entry : plan.getArchiveEntries().entrySet()) {
+			ZipEntry zipEntry = new ZipEntry(entry.getKey());
+			zipEntry.setTime(CONSTANT_TIME_FOR_ZIP_ENTRIES);
+			if (entry.getValue() == null) {
+				zipEntry.setMethod(ZipEntry.STORED);
+				zipEntry.setSize(0);
+				zipEntry.setCrc(0);
+				zipStream.putNextEntry(zipEntry);
+			} else {
+				byte[] bytes = entry.getValue().encode();
+				if (compressionLevel == Deflater.NO_COMPRESSION) {
+					CRC32 crc = new CRC32();
+					crc.update(bytes);
+					zipEntry.setMethod(ZipEntry.STORED);
+					zipEntry.setSize(bytes.length);
+					zipEntry.setCrc(crc.getValue());
+				}
+				zipStream.putNextEntry(zipEntry);
+				zipStream.write(bytes);
+			}
+			zipStream.closeEntry();
+		}
+		zipStream.finish();
+	}
+
+	/**
+	 * {@return the zip archive bytes}
+	 */
+	public byte[] toByteArray() {
+		ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+		try {
+			writeTo(outStream);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // in-memory
+		}
+		return outStream.toByteArray();
+	}
+}
@@ -1,5 +1,6 @@
 package dev.nokee.elements.nativebase;
 
+import dev.nokee.elements.core.Digest;
 import dev.nokee.elements.core.Element;
 import dev.nokee.elements.core.SourceElement;
 
@@ -34,6 +35,11 @@ public abstract class NativeElement extends Element {
 	 */
 	public abstract NativeElement withSources(SourceElement sources);
 
+	@Override
+	protected Digest computeDigest() {
+		return Digest.builder().putString("native").putDigest(getHeaders().getDigest()).putDigest(getSources().getDigest()).build();
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
@@ -16,12 +16,15 @@
 
 package dev.nokee.elements.nativebase;
 
+import dev.nokee.elements.core.Digest;
 import dev.nokee.elements.core.SourceElement;
 
 /**
  * Represents a native library with public/private headers and sources.
  */
 public abstract class NativeLibraryElement extends NativeElement {
+	private volatile SourceElement headers;
+
 	//region public headers
 	/**
 	 * {@return the public headers of this library element}
@@ -104,7 +107,12 @@ public abstract class NativeLibraryElement extends NativeElement {
 	 */
 	@Override
 	public final SourceElement getHeaders() {
-		return SourceElement.ofElements(getPublicHeaders(), getPrivateHeaders());
+		SourceElement result = headers;
+		if (result == null) {
+			result = SourceElement.ofElements(getPublicHeaders(), getPrivateHeaders());
+			headers = result;
+		}
+		return result;
 	}
 
 	/**
@@ -150,6 +158,19 @@ public abstract class NativeLibraryElement extends NativeElement {
 	}
 	//endregion
 
+	/**
+	 * {@inheritDoc}
+	 * Public and private headers are digested separately as they are laid out differently.
+	 */
+	@Override
+	protected Digest computeDigest() {
+		return Digest.builder().putString("native-library")
+			.putDigest(getPublicHeaders().getDigest())
+			.putDigest(getPrivateHeaders().getDigest())
+			.putDigest(getSources().getDigest())
+			.build();
+	}
+
 	public NativeElement asImplementation() {
 		return new NativeSourceElement() {
 			@Override
@@ -115,20 +115,35 @@ public abstract class NativeSourceElement extends NativeElement {
 
 	public static NativeLibraryElement ofElements(List<NativeElement> elements) {
 		return new NativeLibraryElement() {
+			// Composed on first access, the children are only queried when needed and the composite elements flatten their files once
+			private volatile SourceElement publicHeaders;
+			private volatile SourceElement privateHeaders;
+			private volatile SourceElement sources;
+
 			@Override
 			public SourceElement getPublicHeaders() {
-				return SourceElement.ofElements(elements.stream().filter(NativeLibraryElement.class::isInstance).map(it -> ((NativeLibraryElement) it).getPublicHeaders()).collect(Collectors.toList()));
+				SourceElement result = publicHeaders;
+				if (result == null) {
+					result = SourceElement.ofElements(elements.stream().filter(NativeLibraryElement.class::isInstance).map(it -> ((NativeLibraryElement) it).getPublicHeaders()).collect(Collectors.toList()));
+					publicHeaders = result;
+				}
+				return result;
 			}
 
 			@Override
 			public SourceElement getPrivateHeaders() {
-				return SourceElement.ofElements(elements.stream().map(it -> {
-					if (it instanceof NativeLibraryElement) {
-						return ((NativeLibraryElement) it).getPrivateHeaders();
-					} else {
-						return it.getHeaders();
-					}
-				}).collect(Collectors.toList()));
+				SourceElement result = privateHeaders;
+				if (result == null) {
+					result = SourceElement.ofElements(elements.stream().map(it -> {
+						if (it instanceof NativeLibraryElement) {
+							return ((NativeLibraryElement) it).getPrivateHeaders();
+						} else {
+							return it.getHeaders();
+						}
+					}).collect(Collectors.toList()));
+					privateHeaders = result;
+				}
+				return result;
 			}
 
 			@Override
@@ -144,7 +159,12 @@ public abstract class NativeSourceElement extends NativeElement {
 
 			@Override
 			public SourceElement getSources() {
-				return SourceElement.ofElements(elements.stream().map(it -> it.getSources()).collect(Collectors.toList()));
+				SourceElement result = sources;
+				if (result == null) {
+					result = SourceElement.ofElements(elements.stream().map(it -> it.getSources()).collect(Collectors.toList()));
+					sources = result;
+				}
+				return result;
 			}
 
 			@Override
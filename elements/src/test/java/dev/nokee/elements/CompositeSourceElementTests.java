@@ -8,10 +8,13 @@ import org.junit.jupiter.api.Test;
 import java.util.Collections;
 import java.util.List;
 
+import static dev.nokee.commons.hamcrest.gradle.NamedMatcher.named;
 import static dev.nokee.elements.ElementTestUtils.visited;
 import static dev.nokee.elements.core.SourceElement.ofElements;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class CompositeSourceElementTests {
 	@Test
@@ -35,4 +38,19 @@ class CompositeSourceElementTests {
 
 		assertThat(visited(ofElements(first, ofElements(second, ofElements(third), ofElements(fourth, fifth)))), contains(first, second, third, fourth, fifth));
 	}
+
+	@Test
+	void flattensFilesOfNestedElements() {
+		SourceElement subject = ofElements(SourceFileElement.ofFile(SourceFile.of("foo.cpp", "...")), ofElements(SourceFileElement.ofFile(SourceFile.of("bar.cpp", "..."))));
+
+		assertThat(subject.getFiles(), contains(named("foo.cpp"), named("bar.cpp")));
+	}
+
+	@Test
+	void sharesFlattenedFilesWithEveryCaller() {
+		SourceElement subject = ofElements(SourceFileElement.ofFile(SourceFile.of("foo.cpp", "...")), SourceElement.empty());
+
+		assertThat(subject.getFiles(), sameInstance(subject.getFiles()));
+		assertThrows(UnsupportedOperationException.class, () -> subject.getFiles().add(SourceFile.of("bar.cpp", "...")));
+	}
 }
@@ -0,0 +1,59 @@
+package dev.nokee.elements;
+
+import dev.nokee.elements.core.ContentStore;
+import dev.nokee.elements.core.IncrementalElement;
+import dev.nokee.elements.core.SourceFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static dev.nokee.commons.hamcrest.gradle.FileSystemMatchers.*;
+import static dev.nokee.elements.core.IncrementalElement.allChanges;
+import static dev.nokee.elements.core.SourceFileElement.ofFile;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class ContentStoreTests {
+	@TempDir Path testDirectory;
+	IncrementalElement subject = new IncrementalElement() {
+		@Override
+		protected List<Transform> getIncrementalChanges() {
+			return Collections.singletonList(modify(ofFile(SourceFile.of("foo.cpp", "int foo() { return 42 }")), ofFile(SourceFile.of("foo.cpp", "int foo() { return 42; }"))));
+		}
+	};
+
+	@Test
+	void linksSameContentIntoEachDirectory() throws IOException {
+		ContentStore store = ContentStore.at(testDirectory.resolve("store"));
+		store.writeToDirectory(subject, testDirectory.resolve("first"));
+		store.writeToDirectory(subject, testDirectory.resolve("second"));
+
+		assertThat(testDirectory.resolve("first/foo.cpp"), aFile(withTextContent(equalTo("int foo() { return 42 }"))));
+		assertThat(Files.isSameFile(testDirectory.resolve("first/foo.cpp"), testDirectory.resolve("second/foo.cpp")), is(true));
+	}
+
+	@Test
+	void storesEachContentOnceKeyedByDigest() {
+		ContentStore store = ContentStore.at(testDirectory.resolve("store"));
+		store.writeToDirectory(subject, testDirectory.resolve("first"));
+		store.writeToDirectory(subject, testDirectory.resolve("second"));
+
+		String digest = SourceFile.of("foo.cpp", "int foo() { return 42 }").getDigest().toString();
+		assertThat(testDirectory.resolve("store"), hasRelativeDescendants(digest.substring(0, 2) + "/" + digest.substring(2)));
+	}
+
+	@Test
+	void incrementalChangesDoNotModifyStoredContent() {
+		ContentStore store = ContentStore.at(testDirectory.resolve("store"));
+		store.writeToDirectory(subject, testDirectory.resolve("first")).apply(allChanges());
+		store.writeToDirectory(subject, testDirectory.resolve("second"));
+
+		assertThat(testDirectory.resolve("first/foo.cpp"), aFile(withTextContent(equalTo("int foo() { return 42; }"))));
+		assertThat(testDirectory.resolve("second/foo.cpp"), aFile(withTextContent(equalTo("int foo() { return 42 }"))));
+	}
+}
@@ -0,0 +1,93 @@
+package dev.nokee.elements;
+
+import dev.nokee.elements.core.*;
+import dev.nokee.elements.nativebase.NativeLibraryElement;
+import dev.nokee.elements.nativebase.NativeSourceElement;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class ElementDigestTests {
+	static SourceElement sources(String... contents) {
+		SourceFile[] files = new SourceFile[contents.length];
+		for (int i = 0; i < contents.length; i++) {
+			files[i] = SourceFile.of("file" + i + ".cpp", contents[i]);
+		}
+		return SourceElement.ofFiles(Arrays.asList(files));
+	}
+
+	@Test
+	void sourceElementsWithSameFilesHaveSameDigest() {
+		assertThat(sources("a", "b").getDigest(), equalTo(SourceElement.ofElements(sources("a", "b")).getDigest()));
+		assertThat(sources("a", "b").getDigest(), not(equalTo(sources("a", "c").getDigest())));
+	}
+
+	@Test
+	void digestDependsOnFilePaths() {
+		SourceElement subject = SourceElement.ofFiles(Collections.singletonList(SourceFile.of("foo.cpp", "...")));
+		assertThat(subject.getDigest(), not(equalTo(SourceElement.ofFiles(Collections.singletonList(SourceFile.of("bar.cpp", "..."))).getDigest())));
+	}
+
+	@Test
+	void cachesDigestPerElement() {
+		SourceElement subject = sources("a", "b");
+		assertThat(subject.getDigest(), sameInstance(subject.getDigest()));
+	}
+
+	@Test
+	void nativeLibraryDigestDistinguishesPublicAndPrivateHeaders() {
+		NativeLibraryElement publicHeaders = NativeLibraryElement.empty().withPublicHeaders(sources("a"));
+		NativeLibraryElement privateHeaders = NativeLibraryElement.empty().withPrivateHeaders(sources("a"));
+		assertThat(publicHeaders.getDigest(), not(equalTo(privateHeaders.getDigest())));
+	}
+
+	@Test
+	void projectDigestDependsOnIdentifierAndElements() {
+		ProjectElement subject = ProjectElement.ofMain(NativeSourceElement.ofSources(sources("a")));
+		assertThat(subject.withTest(sources("b")).getDigest(), not(equalTo(subject.getDigest())));
+		assertThat(ProjectElement.ofMain(NativeSourceElement.ofSources(sources("a"))).getDigest(), not(equalTo(subject.getDigest())));
+	}
+
+	@Test
+	void workspaceDigestDependsOnProjects() {
+		ProjectElement app = ProjectElement.ofMain(sources("a"));
+		ProjectElement lib = ProjectElement.ofMain(sources("b"));
+		assertThat(workspace(app, lib).getDigest(), equalTo(workspace(app, lib).getDigest()));
+		assertThat(workspace(app, lib).getDigest(), not(equalTo(workspace(app).getDigest())));
+	}
+
+	@Test
+	void layoutResultsOfSameElementHaveSameDigest() {
+		ProjectElement project = ProjectElement.ofMain(sources("a"));
+		assertThat(new GradleLayoutElement().applyTo(project).getDigest(), equalTo(new GradleLayoutElement().applyTo(project).getDigest()));
+	}
+
+	static WorkspaceElement workspace(ProjectElement... projects) {
+		return new WorkspaceElement() {
+			@Override
+			public List<ProjectElement> getProjects() {
+				return Arrays.asList(projects);
+			}
+		};
+	}
+
+	@Test
+	void customElementsDigestTheirLaidOutFiles() {
+		assertThat(customElement("a").getDigest(), equalTo(customElement("a").getDigest()));
+		assertThat(customElement("a").getDigest(), not(equalTo(customElement("b").getDigest())));
+	}
+
+	static Element customElement(String content) {
+		return new Element() {
+			@Override
+			public void accept(Visitor visitor) {
+				visitor.visit(ProjectElement.ofMain(sources(content)));
+			}
+		};
+	}
+}
@@ -0,0 +1,90 @@
+package dev.nokee.elements;
+
+import dev.nokee.elements.core.FileSystemElement;
+import dev.nokee.elements.core.SourceElement;
+import dev.nokee.elements.core.SourceFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.ReadOnlyFileSystemException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ElementFileSystemTests {
+	SourceElement element = SourceElement.ofFiles(Arrays.asList(
+		SourceFile.of("dir/b.cpp", "void b() {}"),
+		SourceFile.of("a.cpp", "void a() {}")
+	));
+	FileSystem subject = element.asFileSystem();
+
+	@AfterEach
+	void closeFileSystem() throws IOException {
+		subject.close();
+	}
+
+	@Test
+	void canWalkElementTree() throws IOException {
+		try (Stream<Path> paths = Files.walk(subject.getPath("/"))) {
+			assertThat(paths.map(Path::toString).collect(Collectors.toList()), contains("/", "/a.cpp", "/dir", "/dir/b.cpp"));
+		}
+	}
+
+	@Test
+	void canReadFiles() throws IOException {
+		assertThat(new String(Files.readAllBytes(subject.getPath("dir/b.cpp")), StandardCharsets.UTF_8), equalTo("void b() {}"));
+		assertThat(Files.size(subject.getPath("/a.cpp")), equalTo(11L));
+		assertThat(Files.isDirectory(subject.getPath("dir")), is(true));
+		assertThat(Files.exists(subject.getPath("missing.cpp")), is(false));
+	}
+
+	@Test
+	void canCopyFilesToDefaultFileSystem(@TempDir Path testDirectory) throws IOException {
+		Files.copy(subject.getPath("a.cpp"), testDirectory.resolve("a.cpp"));
+
+		assertThat(Files.readAllLines(testDirectory.resolve("a.cpp")), contains("void a() {}"));
+	}
+
+	@Test
+	void cannotWriteFiles() {
+		assertThrows(ReadOnlyFileSystemException.class, () -> Files.write(subject.getPath("c.cpp"), new byte[0]));
+		assertThrows(ReadOnlyFileSystemException.class, () -> Files.delete(subject.getPath("a.cpp")));
+	}
+
+	@Test
+	void exposesFilesAtTheirLayoutLocation() throws IOException {
+		FileSystemElement layout = new FileSystemElement(Paths.get("build"), element);
+		try (FileSystem fileSystem = layout.asFileSystem(); Stream<Path> paths = Files.list(fileSystem.getPath("/dir"))) {
+			List<String> names = paths.map(it -> it.getFileName().toString()).collect(Collectors.toList());
+			assertThat(names, contains("b.cpp"));
+		}
+	}
+
+	@Test
+	void canMatchPathsUsingGlob() {
+		assertThat(subject.getPathMatcher("glob:/*/*.cpp").matches(subject.getPath("/dir/b.cpp")), is(true));
+		assertThat(subject.getPathMatcher("glob:/*/*.cpp").matches(subject.getPath("/a.cpp")), is(false));
+	}
+
+	@Test
+	void cannotAccessClosedFileSystem() throws IOException {
+		subject.close();
+
+		assertThrows(ClosedFileSystemException.class, () -> Files.readAllBytes(subject.getPath("a.cpp")));
+	}
+}
@@ -0,0 +1,89 @@
+package dev.nokee.elements;
+
+import dev.nokee.elements.core.InMemoryJavaCompiler;
+import dev.nokee.elements.core.ProjectElement;
+import dev.nokee.elements.core.SourceElement;
+import dev.nokee.elements.core.SourceFile;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+class InMemoryJavaCompilerTests {
+	InMemoryJavaCompiler subject = InMemoryJavaCompiler.create();
+
+	static SourceElement javaSource(String path, String content) {
+		return SourceElement.ofFiles(Collections.singletonList(SourceFile.of(path, content)));
+	}
+
+	@Test
+	void canCompileSourceElement() {
+		InMemoryJavaCompiler.Result result = subject.compile(javaSource("com/example/Foo.java", "package com.example; public class Foo { class Inner {} }"));
+
+		assertThat(result.isSuccessful(), is(true));
+		assertThat(result.getClasses().keySet(), containsInAnyOrder("com.example.Foo", "com.example.Foo$Inner"));
+	}
+
+	@Test
+	void reportsCompilationErrors() {
+		InMemoryJavaCompiler.Result result = subject.compile(javaSource("Foo.java", "public class Foo { int x = \"\"; }"));
+
+		assertThat(result.isSuccessful(), is(false));
+		assertThat(result.getDiagnostics(), hasSize(1));
+		assertThat(result.getClasses().keySet(), empty());
+	}
+
+	@Test
+	void canCompileJavaSourcesOfProjectLayout() {
+		ProjectElement project = ProjectElement.ofMain(javaSource("com/example/Foo.java", "package com.example; public class Foo {}"));
+
+		assertThat(subject.compile(project).getClasses().keySet(), contains("com.example.Foo"));
+	}
+
+	@Test
+	void compilesOnlyMainSourcesOfProjectLayout() {
+		ProjectElement project = ProjectElement.ofMain(javaSource("com/example/Foo.java", "package com.example; public class Foo {}"))
+			.withTest(javaSource("com/example/FooTest.java", "package com.example; public class FooTest { org.junit.Test missing; }"));
+
+		InMemoryJavaCompiler.Result result = subject.compile(project);
+		assertThat(result.isSuccessful(), is(true));
+		assertThat(result.getClasses().keySet(), contains("com.example.Foo"));
+	}
+
+	@Test
+	void attributesResultsToEachBatchedElement() {
+		List<InMemoryJavaCompiler.Result> results = subject.compileAll(Arrays.asList(
+			javaSource("Foo.java", "public class Foo {}"),
+			javaSource("Bar.java", "public class Bar { int x = \"\"; }"),
+			javaSource("Foo.java", "public class Foo { int x; }") // same path, compiled separately
+		));
+
+		assertThat(results.get(0).isSuccessful(), is(true));
+		assertThat(results.get(0).getClasses().keySet(), contains("Foo"));
+		assertThat(results.get(1).isSuccessful(), is(false));
+		assertThat(results.get(2).isSuccessful(), is(true));
+		assertThat(results.get(2).getClasses().keySet(), contains("Foo"));
+	}
+
+	@Test
+	void doesNotCompileBatchedElementsAgainstEachOther() {
+		List<InMemoryJavaCompiler.Result> results = subject.compileAll(Arrays.asList(
+			javaSource("com/example/Foo.java", "package com.example; public class Foo { public static final int X = 1; }"),
+			javaSource("com/example/Bar.java", "package com.example; public class Bar { int x = Foo.X; }"),
+			javaSource("other/Baz.java", "package other; public class Baz {}")
+		));
+
+		assertThat(results.get(0).isSuccessful(), is(true));
+		assertThat(results.get(1).isSuccessful(), is(false)); // fails on its own
+		assertThat(results.get(2).isSuccessful(), is(true));
+		assertThat(results.get(2).getClasses().keySet(), contains("other.Baz"));
+	}
+}
@@ -6,16 +6,24 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static dev.nokee.commons.hamcrest.gradle.FileSystemMatchers.*;
 import static dev.nokee.elements.core.IncrementalElement.allChanges;
+import static dev.nokee.elements.core.IncrementalSequence.nextGeneration;
+import static dev.nokee.elements.core.IncrementalSequence.previousGeneration;
+import static dev.nokee.elements.core.IncrementalSequence.toGeneration;
 import static dev.nokee.elements.core.SourceFileElement.ofFile;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class IncrementalElementTests {
 	@Nested
@@ -265,4 +273,316 @@ class IncrementalElementTests {
 			));
 		}
 	}
+
+	@Nested
+	class PlannedChangesTest {
+		IncrementalElement subject = new IncrementalElement() {
+			@Override
+			protected List<Transform> getIncrementalChanges() {
+				return Arrays.asList(
+					add(ofFile(sourceFile("foo.cpp", "int foo() { return 42 }"))),
+					modify(ofFile(sourceFile("foo.cpp", "int foo() { return 42 }")), ofFile(sourceFile("foo.cpp", "int foo() { return 42; }"))),
+					delete(ofFile(sourceFile("bar.cpp", "int bar() { return 0; }")))
+				);
+			}
+		};
+
+		@Test
+		void collapsesChangesToTheSamePath(@TempDir Path testDirectory) {
+			subject.writeToDirectory(testDirectory).apply(allChanges());
+
+			assertThat(testDirectory, hasDescendants(
+				allOf(withRelativePath("foo.cpp"), aFile(withTextContent(equalTo("int foo() { return 42; }"))))
+			));
+		}
+
+		@Test
+		void detectsConflictingChanges(@TempDir Path testDirectory) {
+			IncrementalElement conflicting = new IncrementalElement() {
+				@Override
+				protected List<Transform> getIncrementalChanges() {
+					return Arrays.asList(
+						add(ofFile(sourceFile("foo.cpp", "int foo() { return 1; }"))),
+						add(ofFile(sourceFile("foo.cpp", "int foo() { return 2; }")))
+					);
+				}
+			};
+
+			FileSystemElement element = conflicting.writeToDirectory(testDirectory);
+			assertThrows(IllegalStateException.class, () -> element.apply(allChanges()));
+			assertThat(testDirectory, anEmptyDirectory());
+		}
+
+		@Test
+		void canApplyChangesUsingExecutor(@TempDir Path testDirectory) {
+			AtomicInteger taskCount = new AtomicInteger();
+			subject.writeToDirectory(testDirectory).apply(allChanges(), task -> {
+				taskCount.incrementAndGet();
+				task.run();
+			});
+
+			assertThat(taskCount.get(), greaterThan(0));
+			assertThat(testDirectory, hasRelativeDescendants("foo.cpp"));
+		}
+
+		@Test
+		void throwsExceptionWhenDeletingMissingFile(@TempDir Path testDirectory) throws IOException {
+			FileSystemElement element = subject.writeToDirectory(testDirectory);
+			Files.delete(testDirectory.resolve("bar.cpp"));
+
+			assertThrows(IllegalStateException.class, () -> element.apply(allChanges()));
+		}
+
+		@Test
+		void keepsDirectoriesEmptiedByChanges(@TempDir Path testDirectory) {
+			IncrementalElement moving = new IncrementalElement() {
+				@Override
+				protected List<Transform> getIncrementalChanges() {
+					return Collections.singletonList(move(ofFile(sourceFile("src/foo.c", "int foo;")), "dst"));
+				}
+			};
+
+			moving.writeToDirectory(testDirectory).apply(allChanges());
+
+			assertThat(testDirectory.resolve("src"), anEmptyDirectory());
+		}
+
+		@Test
+		void canReplaceDeletedFileWithDirectory(@TempDir Path testDirectory) {
+			IncrementalElement replacing = new IncrementalElement() {
+				@Override
+				protected List<Transform> getIncrementalChanges() {
+					return Arrays.asList(
+						delete(ofFile(sourceFile("src/foo", "foo"))),
+						add(ofFile(sourceFile("src/foo/bar.c", "int bar() { return 0; }")))
+					);
+				}
+			};
+
+			replacing.writeToDirectory(testDirectory).apply(allChanges());
+
+			assertThat(testDirectory, hasRelativeDescendants("src/foo/bar.c"));
+		}
+	}
+
+	@Nested
+	class IncrementalSequenceTest {
+		AtomicInteger computedChanges = new AtomicInteger();
+		IncrementalSequence subject = IncrementalSequence.of(
+			new IncrementalElement() {
+				@Override
+				protected List<Transform> getIncrementalChanges() {
+					computedChanges.incrementAndGet();
+					return Arrays.asList(
+						modify(ofFile(sourceFile("foo.cpp", "int foo() { return 1; }")), ofFile(sourceFile("foo.cpp", "int foo() { return 2; }"))),
+						preserve(ofFile(sourceFile("bar.cpp", "int bar() { return 0; }")))
+					);
+				}
+			},
+			new IncrementalElement() {
+				@Override
+				protected List<Transform> getIncrementalChanges() {
+					computedChanges.incrementAndGet();
+					return Arrays.asList(
+						modify(ofFile(sourceFile("foo.cpp", "int foo() { return 2; }")), ofFile(sourceFile("foo.cpp", "int foo() { return 3; }"))),
+						rename(ofFile(sourceFile("bar.cpp", "int bar() { return 0; }")))
+					);
+				}
+			}
+		);
+
+		@Test
+		void canStepForwardAndBackwardThroughGenerations(@TempDir Path testDirectory) {
+			FileSystemElement element = subject.writeToDirectory(testDirectory);
+
+			element = element.apply(nextGeneration()).apply(nextGeneration());
+			assertThat(testDirectory, hasDescendants(
+				allOf(withRelativePath("foo.cpp"), aFile(withTextContent(equalTo("int foo() { return 3; }")))),
+				withRelativePath("renamed-bar.cpp")
+			));
+
+			element = element.apply(previousGeneration());
+			assertThat(testDirectory, hasDescendants(
+				allOf(withRelativePath("foo.cpp"), aFile(withTextContent(equalTo("int foo() { return 2; }")))),
+				withRelativePath("bar.cpp")
+			));
+
+			element.apply(toGeneration(0));
+			assertThat(testDirectory, hasDescendants(
+				allOf(withRelativePath("foo.cpp"), aFile(withTextContent(equalTo("int foo() { return 1; }")))),
+				withRelativePath("bar.cpp")
+			));
+			assertThat(computedChanges.get(), equalTo(2));
+		}
+
+		@Test
+		void steppedElementCanBeRewrittenToAnotherLocation(@TempDir Path testDirectory) {
+			FileSystemElement element = subject.writeToDirectory(testDirectory.resolve("first")).apply(toGeneration(2));
+
+			element.writeToDirectory(testDirectory.resolve("second"));
+			assertThat(testDirectory.resolve("second"), hasRelativeDescendants("foo.cpp", "renamed-bar.cpp"));
+		}
+
+		@Test
+		void canStepBackIncrementalElement(@TempDir Path testDirectory) {
+			IncrementalElement incremental = new IncrementalElement() {
+				@Override
+				protected List<Transform> getIncrementalChanges() {
+					return Collections.singletonList(add(ofFile(sourceFile("foo.cpp", "int foo() { return 42; }"))));
+				}
+			};
+
+			incremental.writeToDirectory(testDirectory).apply(allChanges()).apply(previousGeneration());
+			assertThat(testDirectory, anEmptyDirectory());
+		}
+	}
+
+	@Nested
+	class RevertTest {
+		IncrementalElement subject = new IncrementalElement() {
+			@Override
+			protected List<Transform> getIncrementalChanges() {
+				return Arrays.asList(
+					add(ofFile(sourceFile("added.cpp", "void added() {}"))),
+					delete(ofFile(sourceFile("deleted.cpp", "void deleted() {}"))),
+					modify(ofFile(sourceFile("modified.cpp", "void modified() {}")), ofFile(sourceFile("modified.cpp", "int modified() { return 42; }"))),
+					replace(ofFile(sourceFile("replaced.cpp", "void replaced() {}")), ofFile(sourceFile("replacement.cpp", "void replacement() {}"))),
+					move(ofFile(sourceFile("moved.cpp", "void moved() {}")), "dir"),
+					rename(ofFile(sourceFile("foo.cpp", "void foo() {}")))
+				);
+			}
+		};
+
+		@Test
+		void canRevertAppliedChanges(@TempDir Path testDirectory) {
+			subject.writeToDirectory(testDirectory).apply(allChanges()).revert();
+
+			assertThat(testDirectory, hasRelativeDescendants(
+				"deleted.cpp",
+				"modified.cpp",
+				"replaced.cpp",
+				"moved.cpp",
+				"foo.cpp"
+			));
+			assertThat(testDirectory.resolve("modified.cpp"), aFile(withTextContent(equalTo("void modified() {}"))));
+			assertThat(testDirectory.resolve("dir"), not(anExistingFile()));
+		}
+
+		@Test
+		void revertedElementCanBeReapplied(@TempDir Path testDirectory) {
+			subject.writeToDirectory(testDirectory).apply(allChanges()).revert().apply(allChanges());
+
+			assertThat(testDirectory, hasRelativeDescendants(
+				"added.cpp",
+				"modified.cpp",
+				"replacement.cpp",
+				"dir/moved.cpp",
+				"renamed-foo.cpp"
+			));
+		}
+
+		@Test
+		void canRevertCustomTransformWithoutInverse(@TempDir Path testDirectory) {
+			IncrementalElement custom = new IncrementalElement() {
+				@Override
+				protected List<Transform> getIncrementalChanges() {
+					return Collections.singletonList(new Transform() {
+						@Override
+						public void applyChangesTo(Path directory) {
+							SourceFile.of("custom.cpp", "void custom() {}").writeToDirectory(directory);
+						}
+
+						@Override
+						public List<SourceFile> getBeforeFiles() {
+							return Collections.emptyList();
+						}
+
+						@Override
+						public List<SourceFile> getAfterFiles() {
+							return Collections.singletonList(SourceFile.of("custom.cpp", "void custom() {}"));
+						}
+					});
+				}
+			};
+
+			custom.writeToDirectory(testDirectory).apply(allChanges()).revert();
+
+			assertThat(testDirectory, anEmptyDirectory());
+		}
+
+		@Test
+		void inverseSwapsBeforeAndAfterFiles() {
+			IncrementalElement.Transform transform = IncrementalElement.replace(ofFile(new SourceFile("", "a.cpp", "void a() {}")), ofFile(new SourceFile("", "b.cpp", "void b() {}")));
+
+			assertThat(transform.inverse().get().getBeforeFiles(), equalTo(transform.getAfterFiles()));
+			assertThat(transform.inverse().get().getAfterFiles(), equalTo(transform.getBeforeFiles()));
+		}
+	}
+
+	@Nested
+	class DerivedChangesTest {
+		SourceElement original = SourceElement.ofFiles(Arrays.asList(
+			new SourceFile("", "preserved.cpp", "void preserved() {}"),
+			new SourceFile("", "modified.cpp", "void modified() {}"),
+			new SourceFile("", "deleted.cpp", "void deleted() {}"),
+			new SourceFile("", "foo.cpp", "void foo() {}"),
+			new SourceFile("src", "moved.cpp", "void moved() {}")
+		));
+		SourceElement revised = SourceElement.ofFiles(Arrays.asList(
+			new SourceFile("", "preserved.cpp", "void preserved() {}"),
+			new SourceFile("", "modified.cpp", "int modified() { return 42; }"),
+			new SourceFile("", "renamed-foo.cpp", "void foo() {}"),
+			new SourceFile("dir", "moved.cpp", "void moved() {}"),
+			new SourceFile("", "added.cpp", "void added() {}")
+		));
+
+		@Test
+		void derivesChangesBetweenElements() {
+			List<IncrementalElement.Transform> changes = IncrementalElement.changesBetween(original, revised);
+
+			assertThat(changes, hasSize(6)); // preserve, modify, move, rename, delete and add
+			assertThat(IncrementalElement.changesBetween(original, original), hasSize(1));
+		}
+
+		@Test
+		void canApplyDerivedChanges(@TempDir Path testDirectory) {
+			IncrementalElement.between(original, revised).writeToDirectory(testDirectory).apply(allChanges());
+
+			assertThat(testDirectory, hasRelativeDescendants(
+				"preserved.cpp",
+				"modified.cpp",
+				"renamed-foo.cpp",
+				"dir/moved.cpp",
+				"added.cpp"
+			));
+			assertThat(testDirectory.resolve("modified.cpp"), aFile(withTextContent(equalTo("int modified() { return 42; }"))));
+		}
+
+		@Test
+		void alternateElementIsRevisedElement() {
+			IncrementalElement subject = IncrementalElement.between(original, revised);
+
+			assertThat(subject.getAlternateElement(), equalTo(revised));
+			assertThat(subject.getOriginalElement(), equalTo(original));
+		}
+
+		@Test
+		void movedFilesKeepRevisedAttributes() {
+			SourceFile revisedFile = new SourceFile("dir", "moved.cpp", "void moved() {}").withLineEnding(SourceFile.LineEnding.CRLF);
+			List<IncrementalElement.Transform> changes = IncrementalElement.changesBetween(original, SourceElement.ofFiles(Collections.singletonList(revisedFile)));
+
+			assertThat(changes.stream().flatMap(it -> it.getAfterFiles().stream()).collect(Collectors.toList()), hasItem(revisedFile));
+		}
+
+		@Test
+		void canMoveFileToElementRoot(@TempDir Path testDirectory) {
+			SourceElement nested = SourceElement.ofFiles(Collections.singletonList(new SourceFile("src", "x.c", "int x;")));
+			SourceElement root = SourceElement.ofFiles(Collections.singletonList(new SourceFile("", "x.c", "int x;")));
+
+			assertThat(IncrementalElement.changesBetween(nested, root).get(0).getAfterFiles(), contains(root.getFiles().get(0)));
+
+			IncrementalElement.between(nested, root).writeToDirectory(testDirectory).apply(allChanges());
+			assertThat(testDirectory, hasRelativeDescendants("x.c"));
+		}
+	}
 }
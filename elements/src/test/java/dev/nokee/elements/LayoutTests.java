@@ -149,6 +149,49 @@ class LayoutTests {
 		));
 	}
 
+	@Test
+	void standardGradleRoutesEachFileByType(@TempDir Path testDirectory) {
+		SourceElement mixed = SourceElement.ofFiles(Arrays.asList(
+			SourceFile.of("main.cpp", "..."),
+			SourceFile.of("main.h", "..."),
+			SourceFile.of("com/example/Main.java", "..."),
+			SourceFile.of("util.c", "...")
+		));
+		new GradleLayoutElement().applyTo(ProjectElement.ofMain(mixed)).writeToDirectory(testDirectory);
+		assertThat(testDirectory, hasRelativeDescendants(
+			"src/main/cpp/main.cpp",
+			"src/main/cpp/main.h",
+			"src/main/java/com/example/Main.java",
+			"src/main/c/util.c"
+		));
+	}
+
+	@Test
+	void standardGradleKeepsElementStartingWithUnknownFileTypeAtRoot(@TempDir Path testDirectory) {
+		SourceElement sources = SourceElement.ofFiles(Arrays.asList(
+			SourceFile.of("main.h", "..."),
+			SourceFile.of("main.cpp", "...")
+		));
+		new GradleLayoutElement().applyTo(ProjectElement.ofMain(sources)).writeToDirectory(testDirectory);
+		assertThat(testDirectory, hasRelativeDescendants(
+			"src/main/main.h",
+			"src/main/main.cpp"
+		));
+	}
+
+	@Test
+	void standardGradleWithCustomFileTypes(@TempDir Path testDirectory) {
+		SourceElement sources = SourceElement.ofFiles(Arrays.asList(
+			SourceFile.of("main.kt", "..."),
+			SourceFile.of("Util.java", "...")
+		));
+		new GradleLayoutElement(FileTypeRegistry.defaults().withType("kotlin", "kt")).applyTo(ProjectElement.ofMain(sources)).writeToDirectory(testDirectory);
+		assertThat(testDirectory, hasRelativeDescendants(
+			"src/main/kotlin/main.kt",
+			"src/main/java/Util.java"
+		));
+	}
+
 	public abstract static class TraditionalNativeLayoutElement extends SimpleLayoutElement {
 		protected abstract String projectNameOf(ProjectElement element);
 
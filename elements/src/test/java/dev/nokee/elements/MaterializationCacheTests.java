@@ -0,0 +1,73 @@
+package dev.nokee.elements;
+
+import dev.nokee.elements.core.MaterializationCache;
+import dev.nokee.elements.core.SourceElement;
+import dev.nokee.elements.core.SourceFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static dev.nokee.commons.hamcrest.gradle.FileSystemMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MaterializationCacheTests {
+	@TempDir Path testDirectory;
+	SourceElement first = SourceElement.ofFiles(Arrays.asList(SourceFile.of("a.cpp", "void a() {}"), SourceFile.of("dir/b.cpp", "void b() {}")));
+	SourceElement second = SourceElement.ofFiles(Arrays.asList(SourceFile.of("c.cpp", "void c() {}")));
+
+	@Test
+	void writesCachedElementToEachDirectory() {
+		MaterializationCache cache = MaterializationCache.create(testDirectory.resolve("scratch"), 1024);
+		cache.writeToDirectory(first, testDirectory.resolve("first"));
+		cache.writeToDirectory(first, testDirectory.resolve("second"));
+
+		assertThat(testDirectory.resolve("first"), hasRelativeDescendants("a.cpp", "dir/b.cpp"));
+		assertThat(testDirectory.resolve("second"), hasRelativeDescendants("a.cpp", "dir/b.cpp"));
+		assertThat(testDirectory.resolve("second/dir/b.cpp"), aFile(withTextContent(equalTo("void b() {}"))));
+		assertThat(scratchEntries(), equalTo(1L));
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedElementWhenOverBudget() {
+		MaterializationCache cache = MaterializationCache.create(testDirectory.resolve("scratch"), 25);
+		cache.writeToDirectory(first, testDirectory.resolve("first"));
+		cache.writeToDirectory(second, testDirectory.resolve("second"));
+
+		assertThat(testDirectory.resolve("second"), hasRelativeDescendants("c.cpp"));
+		assertThat(scratchEntries(), equalTo(1L));
+	}
+
+	@Test
+	void writesElementLargerThanBudgetDirectly() {
+		MaterializationCache cache = MaterializationCache.create(testDirectory.resolve("scratch"), 5);
+		cache.writeToDirectory(first, testDirectory.resolve("first"));
+
+		assertThat(testDirectory.resolve("first"), hasRelativeDescendants("a.cpp", "dir/b.cpp"));
+		assertThat(Files.exists(testDirectory.resolve("scratch")), is(false));
+	}
+
+	@Test
+	void deletesPartiallyMaterializedElementOnFailure() {
+		MaterializationCache cache = MaterializationCache.create(testDirectory.resolve("scratch"), 1024);
+		SourceElement conflicting = SourceElement.ofFiles(Arrays.asList(SourceFile.of("a.cpp", "void a() {}"), SourceFile.of("a.cpp/b.cpp", "void b() {}")));
+
+		assertThrows(UncheckedIOException.class, () -> cache.writeToDirectory(conflicting, testDirectory.resolve("first")));
+		assertThat(scratchEntries(), equalTo(0L));
+	}
+
+	private long scratchEntries() {
+		try (Stream<Path> stream = Files.list(testDirectory.resolve("scratch"))) {
+			return stream.count();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
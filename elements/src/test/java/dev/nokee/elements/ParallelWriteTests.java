@@ -0,0 +1,124 @@
+package dev.nokee.elements;
+
+import dev.nokee.elements.core.FileSystemElement;
+import dev.nokee.elements.core.GradleLayoutElement;
+import dev.nokee.elements.core.ProjectElement;
+import dev.nokee.elements.core.SourceElement;
+import dev.nokee.elements.core.SourceFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static dev.nokee.commons.hamcrest.gradle.FileSystemMatchers.aFile;
+import static dev.nokee.commons.hamcrest.gradle.FileSystemMatchers.anEmptyDirectory;
+import static dev.nokee.commons.hamcrest.gradle.FileSystemMatchers.hasRelativeDescendants;
+import static dev.nokee.commons.hamcrest.gradle.FileSystemMatchers.withTextContent;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParallelWriteTests {
+	ExecutorService executor = Executors.newFixedThreadPool(4);
+	SourceElement subject = SourceElement.ofFiles(Arrays.asList(
+		SourceFile.of("a.cpp", "void a() {}"),
+		SourceFile.of("b.cpp", "void b() {}"),
+		SourceFile.of("dir/c.cpp", "void c() {}"),
+		SourceFile.of("dir/d.cpp", "void d() {}")
+	));
+
+	@AfterEach
+	void shutdownExecutor() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void canWriteSourceElementConcurrently(@TempDir Path testDirectory) {
+		subject.writeToDirectory(testDirectory, executor);
+
+		assertThat(testDirectory, hasRelativeDescendants("a.cpp", "b.cpp", "dir/c.cpp", "dir/d.cpp"));
+	}
+
+	@Test
+	void canWriteFileSystemElementConcurrently(@TempDir Path testDirectory) {
+		new GradleLayoutElement().applyTo(ProjectElement.ofMain(subject)).writeToDirectory(testDirectory, executor);
+
+		assertThat(testDirectory, hasRelativeDescendants("src/main/cpp/a.cpp", "src/main/cpp/b.cpp", "src/main/cpp/dir/c.cpp", "src/main/cpp/dir/d.cpp"));
+	}
+
+	@Test
+	void reportsFirstFailureInElementOrder(@TempDir Path testDirectory) throws IOException {
+		Files.write(testDirectory.resolve("dir"), new byte[0]); // blocks 'dir/c.cpp' and 'dir/d.cpp'
+
+		UncheckedIOException ex = assertThrows(UncheckedIOException.class, () -> subject.writeToDirectory(testDirectory, executor));
+		assertThat(ex.getMessage(), containsString("c.cpp"));
+		assertThat(Arrays.asList(ex.getSuppressed()), contains(hasToString(containsString("d.cpp"))));
+	}
+
+	@Test
+	void canWriteSourceElementAsynchronously(@TempDir Path testDirectory) {
+		FileSystemElement result = subject.writeToDirectoryAsync(testDirectory, executor).join();
+
+		assertThat(testDirectory, hasRelativeDescendants("a.cpp", "b.cpp", "dir/c.cpp", "dir/d.cpp"));
+		assertThat(result.verify(testDirectory).isUpToDate(), is(true));
+	}
+
+	@Test
+	void cancellingStopsPendingWrites(@TempDir Path testDirectory) throws InterruptedException {
+		ExecutorService singleThreadExecutor = Executors.newSingleThreadExecutor();
+		CountDownLatch busy = new CountDownLatch(1);
+		singleThreadExecutor.execute(() -> {
+			try {
+				busy.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		CompletableFuture<FileSystemElement> result = subject.writeToDirectoryAsync(testDirectory, singleThreadExecutor);
+		assertThat(result.cancel(false), is(true));
+		busy.countDown();
+		singleThreadExecutor.shutdown();
+		assertThat(singleThreadExecutor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+
+		assertThat(testDirectory, anEmptyDirectory());
+	}
+
+	@Test
+	void completesExceptionallyOnFailure(@TempDir Path testDirectory) throws IOException {
+		Files.write(testDirectory.resolve("dir"), new byte[0]); // blocks 'dir/c.cpp' and 'dir/d.cpp'
+
+		CompletionException ex = assertThrows(CompletionException.class, () -> subject.writeToDirectoryAsync(testDirectory, executor).join());
+		assertThat(ex.getCause(), instanceOf(UncheckedIOException.class));
+	}
+
+	@Test
+	void writesLastFileComposedAtTheSamePath(@TempDir Path testDirectory) {
+		List<SourceElement> elements = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			elements.add(SourceElement.ofFiles(Arrays.asList(SourceFile.of("a.cpp", "void a" + i + "() {}"))));
+		}
+		SourceElement composed = SourceElement.ofElements(elements);
+
+		composed.writeToDirectory(testDirectory.resolve("sequential"));
+		composed.writeToDirectory(testDirectory.resolve("parallel"), executor);
+		composed.writeToDirectoryAsync(testDirectory.resolve("async"), executor).join();
+
+		assertThat(testDirectory.resolve("sequential/a.cpp"), aFile(withTextContent(equalTo("void a49() {}"))));
+		assertThat(testDirectory.resolve("parallel/a.cpp"), aFile(withTextContent(equalTo("void a49() {}"))));
+		assertThat(testDirectory.resolve("async/a.cpp"), aFile(withTextContent(equalTo("void a49() {}"))));
+	}
+}
@@ -0,0 +1,84 @@
+package dev.nokee.elements;
+
+import dev.nokee.elements.core.PathIndex;
+import dev.nokee.elements.core.SourceElement;
+import dev.nokee.elements.core.SourceFile;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+class PathIndexTests {
+	SourceElement element = SourceElement.ofFiles(Arrays.asList(
+		SourceFile.of("src/main/cpp/a.cpp", "void a() {}"),
+		SourceFile.of("src/main/headers/a.h", "void a();"),
+		SourceFile.of("src/main/cpp/b.cpp", "void b() {}")
+	));
+	PathIndex subject = element.getPathIndex();
+
+	@Test
+	void canFindFileByPath() {
+		assertThat(subject.find("src/main/cpp/b.cpp").getContent(), equalTo("void b() {}"));
+		assertThat(subject.find("src/main/cpp"), nullValue());
+		assertThat(subject.find("src/main/cpp/c.cpp"), nullValue());
+	}
+
+	@Test
+	void canQueryFilesByExtension() {
+		assertThat(pathsOf(subject.withExtension("cpp")), contains("src/main/cpp/a.cpp", "src/main/cpp/b.cpp"));
+		assertThat(subject.withExtension("swift"), empty());
+	}
+
+	@Test
+	void canQueryFilesByGlob() {
+		assertThat(pathsOf(subject.select("src/main/*/a.*")), contains("src/main/cpp/a.cpp", "src/main/headers/a.h"));
+		assertThat(pathsOf(subject.select(PathIndex.Query.glob("**/*.h"))), contains("src/main/headers/a.h"));
+		assertThat(subject.select("src/*.cpp"), empty());
+	}
+
+	@Test
+	void indexIsComputedOnce() {
+		assertThat(element.getPathIndex(), is(subject));
+	}
+
+	@Test
+	void hasNoConflictsForDistinctPaths() {
+		assertThat(subject.getConflicts(), empty());
+	}
+
+	@Test
+	void reportsFilesOverwrittenByComposedElements() {
+		PathIndex index = SourceElement.ofElements(element, SourceElement.ofFiles(Arrays.asList(
+			SourceFile.of("src/main/cpp/a.cpp", "int a() { return 42; }"),
+			SourceFile.of("src/main/headers/a.h", "void a();")
+		))).getPathIndex();
+
+		assertThat(index.getConflicts().stream().map(Object::toString).collect(Collectors.toList()), contains(
+			"'src/main/cpp/a.cpp' is written by 2 files",
+			"'src/main/headers/a.h' is duplicated by 2 files"
+		));
+		assertThat(index.find("src/main/cpp/a.cpp").getContent(), equalTo("int a() { return 42; }"));
+	}
+
+	@Test
+	void reportsFilesUsedAsDirectory() {
+		PathIndex index = SourceElement.ofFiles(Arrays.asList(
+			SourceFile.of("src/main", "..."),
+			SourceFile.of("src/main/cpp/a.cpp", "void a() {}")
+		)).getPathIndex();
+
+		assertThat(index.getConflicts().get(0).toString(), equalTo("'src/main' is both a file and a directory"));
+	}
+
+	private static List<String> pathsOf(List<SourceFile> files) {
+		return files.stream().map(SourceFile::getFilePath).collect(Collectors.toList());
+	}
+}
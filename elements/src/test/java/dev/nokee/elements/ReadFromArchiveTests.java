@@ -0,0 +1,73 @@
+package dev.nokee.elements;
+
+import dev.nokee.elements.core.SourceElement;
+import dev.nokee.elements.core.SourceFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.zip.ZipInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+class ReadFromArchiveTests {
+	SourceElement element = SourceElement.ofFiles(Arrays.asList(
+		SourceFile.of("samples/app/src/main/cpp/a.cpp", "void a() {}"),
+		SourceFile.of("samples/app/build/tmp/a.o", "..."),
+		SourceFile.of("samples/app/README.md", "# Sample")
+	));
+
+	@Test
+	void canReadZipStream() {
+		SourceElement subject = SourceElement.fromZip(new ZipInputStream(new ByteArrayInputStream(element.asZip("sources.zip").toByteArray())), Collections.emptyList(), Arrays.asList("**/build/**"));
+
+		assertThat(pathsOf(subject), contains("samples/app/README.md", "samples/app/src/main/cpp/a.cpp"));
+		assertThat(subject.getFiles().get(1).getContent(), equalTo("void a() {}"));
+	}
+
+	@Test
+	void canReadJarFile(@TempDir Path testDirectory) throws IOException {
+		Path archive = element.asZip("sources.jar").writeToDirectory(testDirectory);
+
+		try (JarFile jarFile = new JarFile(archive.toFile())) {
+			SourceElement subject = SourceElement.fromZip(jarFile, Arrays.asList("**/*.cpp"), Collections.emptyList());
+			assertThat(pathsOf(subject), contains("samples/app/src/main/cpp/a.cpp"));
+			assertThat(subject.getDigest(), equalTo(SourceElement.ofFiles(Collections.singletonList(SourceFile.of("samples/app/src/main/cpp/a.cpp", "void a() {}"))).getDigest()));
+		}
+	}
+
+	@Test
+	void canReadClasspathDirectoryOfJar(@TempDir Path testDirectory) throws IOException {
+		Path archive = element.asZip("sources.jar").writeToDirectory(testDirectory);
+
+		try (URLClassLoader classLoader = new URLClassLoader(new URL[] {archive.toUri().toURL()}, null)) {
+			SourceElement subject = SourceElement.fromClasspath(classLoader, "samples/app", Collections.emptyList(), Arrays.asList("build/**"));
+			assertThat(pathsOf(subject), contains("README.md", "src/main/cpp/a.cpp"));
+		}
+	}
+
+	@Test
+	void canReadClasspathDirectory(@TempDir Path testDirectory) throws IOException {
+		element.writeToDirectory(testDirectory);
+
+		try (URLClassLoader classLoader = new URLClassLoader(new URL[] {testDirectory.toUri().toURL()}, null)) {
+			SourceElement subject = SourceElement.fromClasspath(classLoader, "samples/app", Collections.emptyList(), Arrays.asList("build/**"));
+			assertThat(pathsOf(subject), contains("README.md", "src/main/cpp/a.cpp"));
+		}
+	}
+
+	private static List<String> pathsOf(SourceElement element) {
+		return element.getFiles().stream().map(SourceFile::getFilePath).collect(Collectors.toList());
+	}
+}
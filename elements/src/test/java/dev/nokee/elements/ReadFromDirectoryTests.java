@@ -0,0 +1,69 @@
+package dev.nokee.elements;
+
+import dev.nokee.elements.core.SourceElement;
+import dev.nokee.elements.core.SourceFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+class ReadFromDirectoryTests {
+	SourceElement element = SourceElement.ofFiles(Arrays.asList(
+		SourceFile.of("src/main/cpp/a.cpp", "void a() {}"),
+		SourceFile.of("src/main/headers/a.h", "void a();"),
+		SourceFile.of("build/tmp/a.o", "..."),
+		SourceFile.of("README.md", "# Sample")
+	));
+
+	@Test
+	void readsAllFilesSortedByPath(@TempDir Path testDirectory) {
+		element.writeToDirectory(testDirectory);
+
+		SourceElement subject = SourceElement.fromDirectory(testDirectory);
+		assertThat(pathsOf(subject), contains("README.md", "build/tmp/a.o", "src/main/cpp/a.cpp", "src/main/headers/a.h"));
+		assertThat(subject.getPathIndex().find("src/main/cpp/a.cpp").getContent(), equalTo("void a() {}"));
+	}
+
+	@Test
+	void canIncludeAndExcludeFiles(@TempDir Path testDirectory) {
+		element.writeToDirectory(testDirectory);
+
+		assertThat(pathsOf(SourceElement.fromDirectory(testDirectory, Arrays.asList("src/**"), Collections.emptyList())), contains("src/main/cpp/a.cpp", "src/main/headers/a.h"));
+		assertThat(pathsOf(SourceElement.fromDirectory(testDirectory, Collections.emptyList(), Arrays.asList("build/**", "**/*.h"))), contains("README.md", "src/main/cpp/a.cpp"));
+	}
+
+	@Test
+	void readElementHasSameDigestAsWrittenElement(@TempDir Path testDirectory) {
+		SourceElement sources = SourceElement.ofFiles(Arrays.asList(
+			SourceFile.of("a.cpp", "void a() {}"),
+			SourceFile.of("dir/b.cpp", "void b() {}")
+		));
+		sources.writeToDirectory(testDirectory);
+
+		assertThat(SourceElement.fromDirectory(testDirectory).getDigest(), equalTo(sources.getDigest()));
+	}
+
+	@Test
+	void skipsBinaryFiles(@TempDir Path testDirectory) throws IOException {
+		element.writeToDirectory(testDirectory);
+		Files.createDirectories(testDirectory.resolve("gradle/wrapper"));
+		Files.write(testDirectory.resolve("gradle/wrapper/gradle-wrapper.jar"), new byte[] {0x50, 0x4b, 0x03, 0x04, 0x00, 0x00});
+		Files.write(testDirectory.resolve("logo.png"), new byte[] {(byte) 0x89, 0x50, 0x4e, 0x47});
+
+		assertThat(pathsOf(SourceElement.fromDirectory(testDirectory)), contains("README.md", "build/tmp/a.o", "src/main/cpp/a.cpp", "src/main/headers/a.h"));
+	}
+
+	private static List<String> pathsOf(SourceElement element) {
+		return element.getFiles().stream().map(SourceFile::getFilePath).collect(Collectors.toList());
+	}
+}
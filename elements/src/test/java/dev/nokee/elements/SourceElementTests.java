@@ -10,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -19,6 +20,8 @@ import static dev.nokee.commons.hamcrest.gradle.NamedMatcher.named;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.emptyIterable;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
 
 class SourceElementTests {
 	static SourceFile sourceFile = SourceFile.of("foo.cpp", "int foo() { return 42; }");
@@ -37,6 +40,22 @@ class SourceElementTests {
 			subject.writeToDirectory(testDirectory);
 			assertThat(testDirectory, hasRelativeDescendants("foo.cpp"));
 		}
+
+		@Test
+		void hashCodeFollowsChangingFiles() {
+			List<SourceFile> files = new ArrayList<>();
+			SourceElement changing = new SourceElement() {
+				@Override
+				public List<SourceFile> getFiles() {
+					return files;
+				}
+			};
+
+			int emptyHashCode = changing.hashCode();
+			files.add(SourceFile.builder().withName("foo.cpp").build()); // without content
+			assertThat(changing.hashCode(), not(equalTo(emptyHashCode)));
+			assertThat(changing.hashCode(), equalTo(SourceElement.ofFiles(new ArrayList<>(files)).hashCode()));
+		}
 	}
 
 	@Nested
@@ -0,0 +1,143 @@
+package dev.nokee.elements;
+
+import dev.nokee.elements.core.SourceFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+class SourceFileTests {
+	SourceFile subject = SourceFile.of("foo.cpp", "// café\r\nint foo();\n");
+
+	@Test
+	void writesContentUsingUtf8ByDefault(@TempDir Path testDirectory) throws IOException {
+		subject.writeToDirectory(testDirectory);
+
+		assertThat(Files.readAllBytes(testDirectory.resolve("foo.cpp")), equalTo("// café\r\nint foo();\n".getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	void canWriteContentUsingExplicitCharset(@TempDir Path testDirectory) throws IOException {
+		subject.withCharset(StandardCharsets.ISO_8859_1).writeToDirectory(testDirectory);
+
+		assertThat(Files.readAllBytes(testDirectory.resolve("foo.cpp")), equalTo("// café\r\nint foo();\n".getBytes(StandardCharsets.ISO_8859_1)));
+	}
+
+	@Test
+	void canNormalizeLineEndingsToLf(@TempDir Path testDirectory) throws IOException {
+		subject.withLineEnding(SourceFile.LineEnding.LF).writeToDirectory(testDirectory);
+
+		assertThat(new String(Files.readAllBytes(testDirectory.resolve("foo.cpp")), StandardCharsets.UTF_8), equalTo("// café\nint foo();\n"));
+	}
+
+	@Test
+	void canNormalizeLineEndingsToCrlf(@TempDir Path testDirectory) throws IOException {
+		subject.withLineEnding(SourceFile.LineEnding.CRLF).writeToDirectory(testDirectory);
+
+		assertThat(new String(Files.readAllBytes(testDirectory.resolve("foo.cpp")), StandardCharsets.UTF_8), equalTo("// café\r\nint foo();\r\n"));
+	}
+
+	@Test
+	void keepsEncodingPolicyWhenRenamed() {
+		SourceFile file = subject.withCharset(StandardCharsets.UTF_16).withLineEnding(SourceFile.LineEnding.CRLF).withName("bar.cpp");
+
+		assertThat(file.getCharset(), equalTo(StandardCharsets.UTF_16));
+		assertThat(file.getLineEnding(), equalTo(SourceFile.LineEnding.CRLF));
+	}
+
+	@Test
+	void encodingPolicyIsPartOfEquality() {
+		assertThat(subject.withLineEnding(SourceFile.LineEnding.CRLF), not(equalTo(subject)));
+	}
+
+	@Test
+	void doesNotLoadLazyContentUntilAccessed() {
+		AtomicInteger loadCount = new AtomicInteger();
+		SourceFile file = SourceFile.lazyFrom(Paths.get("foo.cpp"), () -> {
+			loadCount.incrementAndGet();
+			return "int foo();";
+		});
+
+		assertThat(file.getName(), equalTo("foo.cpp"));
+		assertThat(file.withName("bar.cpp").getName(), equalTo("bar.cpp"));
+		assertThat(loadCount.get(), equalTo(0));
+
+		assertThat(file.getContent(), equalTo("int foo();"));
+		assertThat(file.getContent(), equalTo("int foo();"));
+		assertThat(loadCount.get(), equalTo(1));
+	}
+
+	@Test
+	void loadsLazyContentOnceWhenAccessedConcurrently() {
+		AtomicInteger loadCount = new AtomicInteger();
+		SourceFile file = SourceFile.lazyFrom(Paths.get("foo.cpp"), () -> {
+			loadCount.incrementAndGet();
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50)); // gives the other threads time to race
+			return "int foo();";
+		});
+
+		IntStream.range(0, 8).mapToObj(it -> CompletableFuture.runAsync(file::getContent)).collect(Collectors.toList()).forEach(CompletableFuture::join);
+		assertThat(loadCount.get(), equalTo(1));
+	}
+
+	@Test
+	void loadsLazyContentWhenWritten(@TempDir Path testDirectory) throws IOException {
+		SourceFile.lazyFrom(Paths.get("dir/foo.cpp"), () -> "int foo();", SourceFile.Retention.SOFT).writeToDirectory(testDirectory);
+
+		assertThat(new String(Files.readAllBytes(testDirectory.resolve("dir/foo.cpp")), StandardCharsets.UTF_8), equalTo("int foo();"));
+	}
+
+	@Test
+	void computesSha256DigestOfWrittenBytes() {
+		assertThat(SourceFile.of("foo.txt", "abc").getDigest().toString(), equalTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad"));
+	}
+
+	@Test
+	void cachesDigest() {
+		assertThat(subject.getDigest(), sameInstance(subject.getDigest()));
+	}
+
+	@Test
+	void digestDependsOnlyOnWrittenBytes() {
+		assertThat(subject.withName("bar.cpp").getDigest(), equalTo(subject.getDigest()));
+		assertThat(subject.withLineEnding(SourceFile.LineEnding.LF).getDigest(), not(equalTo(subject.getDigest())));
+	}
+
+	@Test
+	void equalFilesHaveSameHashCode() {
+		assertThat(SourceFile.of("foo.cpp", "// café\r\nint foo();\n"), equalTo(subject));
+		assertThat(SourceFile.of("foo.cpp", "// café\r\nint foo();\n").hashCode(), equalTo(subject.hashCode()));
+	}
+
+	@Test
+	void equalityDoesNotDependOnCachedDigests() {
+		SourceFile crlf = SourceFile.of("foo.cpp", "int foo();\r\n").withLineEnding(SourceFile.LineEnding.LF);
+		SourceFile lf = SourceFile.of("foo.cpp", "int foo();\n").withLineEnding(SourceFile.LineEnding.LF);
+		assertThat(crlf, not(equalTo(lf)));
+
+		assertThat(crlf.getDigest(), equalTo(lf.getDigest()));
+		assertThat(crlf, not(equalTo(lf)));
+	}
+
+	@Test
+	void canHashFileWithoutContent() {
+		SourceFile file = SourceFile.builder().withName("foo.cpp").build();
+
+		assertThat(file.hashCode(), equalTo(SourceFile.builder().withName("foo.cpp").build().hashCode()));
+	}
+}
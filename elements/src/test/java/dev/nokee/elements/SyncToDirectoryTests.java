@@ -0,0 +1,69 @@
+package dev.nokee.elements;
+
+import dev.nokee.elements.core.SourceElement;
+import dev.nokee.elements.core.SourceFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import static dev.nokee.commons.hamcrest.gradle.FileSystemMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class SyncToDirectoryTests {
+	static final FileTime OLD_TIME = FileTime.fromMillis(0);
+	@TempDir Path testDirectory;
+
+	@BeforeEach
+	void givenExistingFiles() throws IOException {
+		SourceElement.ofFiles(Arrays.asList(
+			SourceFile.of("a.cpp", "void a() {}"),
+			SourceFile.of("b.cpp", "void b() {}"),
+			SourceFile.of("stale/c.cpp", "void c() {}")
+		)).writeToDirectory(testDirectory);
+		Files.setLastModifiedTime(testDirectory.resolve("a.cpp"), OLD_TIME);
+		Files.setLastModifiedTime(testDirectory.resolve("b.cpp"), OLD_TIME);
+	}
+
+	SourceElement subject = SourceElement.ofFiles(Arrays.asList(
+		SourceFile.of("a.cpp", "void a() {}"),
+		SourceFile.of("b.cpp", "int b() { return 42; }"),
+		SourceFile.of("d.cpp", "void d() {}")
+	));
+
+	@Test
+	void doesNotRewriteUnchangedFiles() throws IOException {
+		subject.syncToDirectory(testDirectory);
+
+		assertThat(Files.getLastModifiedTime(testDirectory.resolve("a.cpp")), equalTo(OLD_TIME));
+	}
+
+	@Test
+	void writesChangedAndMissingFiles() {
+		subject.syncToDirectory(testDirectory);
+
+		assertThat(testDirectory.resolve("b.cpp"), aFile(withTextContent(equalTo("int b() { return 42; }"))));
+		assertThat(testDirectory.resolve("d.cpp"), aFile(withTextContent(equalTo("void d() {}"))));
+	}
+
+	@Test
+	void keepsStaleFilesByDefault() {
+		subject.syncToDirectory(testDirectory);
+
+		assertThat(testDirectory, hasRelativeDescendants("a.cpp", "b.cpp", "d.cpp", "stale/c.cpp"));
+	}
+
+	@Test
+	void canDeleteStaleFiles() {
+		subject.syncToDirectory(testDirectory, true);
+
+		assertThat(testDirectory, hasRelativeDescendants("a.cpp", "b.cpp", "d.cpp"));
+		assertThat("removes emptied directory", Files.exists(testDirectory.resolve("stale")), is(false));
+	}
+}
@@ -0,0 +1,82 @@
+package dev.nokee.elements;
+
+import dev.nokee.elements.core.IncrementalElement;
+import dev.nokee.elements.core.SourceElement;
+import dev.nokee.elements.core.SourceFile;
+import dev.nokee.elements.core.UnifiedDiff;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static dev.nokee.elements.core.SourceFileElement.ofFile;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.emptyString;
+import static org.hamcrest.Matchers.equalTo;
+
+class UnifiedDiffTests {
+	@Test
+	void generatesHunksForModifiedFiles() {
+		SourceFile patch = UnifiedDiff.between("changes.patch",
+			SourceElement.ofFiles(Collections.singletonList(SourceFile.of("foo.cpp", "a\nb\nc\nd\n"))),
+			SourceElement.ofFiles(Collections.singletonList(SourceFile.of("foo.cpp", "a\nB\nc\nd\ne\n"))));
+
+		assertThat(patch.getContent(), equalTo(String.join("\n",
+			"diff --git a/foo.cpp b/foo.cpp",
+			"index d68dd40..6fe8acc 100644",
+			"--- a/foo.cpp",
+			"+++ b/foo.cpp",
+			"@@ -1,4 +1,5 @@",
+			" a",
+			"-b",
+			"+B",
+			" c",
+			" d",
+			"+e",
+			"")));
+	}
+
+	@Test
+	void generatesPatchForIncrementalChanges() {
+		IncrementalElement subject = new IncrementalElement() {
+			@Override
+			protected List<Transform> getIncrementalChanges() {
+				return Arrays.asList(
+					rename(ofFile(sourceFile("foo.cpp", "int foo();"))),
+					add(ofFile(sourceFile("bar.cpp", "int bar();"))),
+					delete(ofFile(sourceFile("far.cpp", "int far();\n")))
+				);
+			}
+		};
+
+		assertThat(subject.asPatch("changes.patch").getContent(), equalTo(String.join("\n",
+			"diff --git a/bar.cpp b/bar.cpp",
+			"new file mode 100644",
+			"index 0000000..22b62c3",
+			"--- /dev/null",
+			"+++ b/bar.cpp",
+			"@@ -0,0 +1 @@",
+			"+int bar();",
+			"\\ No newline at end of file",
+			"diff --git a/far.cpp b/far.cpp",
+			"deleted file mode 100644",
+			"index b7968af..0000000",
+			"--- a/far.cpp",
+			"+++ /dev/null",
+			"@@ -1 +0,0 @@",
+			"-int far();",
+			"diff --git a/foo.cpp b/renamed-foo.cpp",
+			"similarity index 100%",
+			"rename from foo.cpp",
+			"rename to renamed-foo.cpp",
+			"")));
+	}
+
+	@Test
+	void generatesEmptyPatchForIdenticalElements() {
+		SourceElement element = SourceElement.ofFiles(Collections.singletonList(SourceFile.of("foo.cpp", "...")));
+
+		assertThat(UnifiedDiff.between("changes.patch", element, element).getContent(), emptyString());
+	}
+}
@@ -0,0 +1,86 @@
+package dev.nokee.elements;
+
+import dev.nokee.elements.core.SourceElement;
+import dev.nokee.elements.core.SourceFile;
+import dev.nokee.elements.core.VerificationResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class VerifyDirectoryTests {
+	static final FileTime OLD_TIME = FileTime.fromMillis(0);
+	@TempDir Path testDirectory;
+
+	SourceElement subject = SourceElement.ofFiles(Arrays.asList(
+		SourceFile.of("a.cpp", "void a() {}"),
+		SourceFile.of("b.cpp", "void b() {}"),
+		SourceFile.of("include/c.h", "void c();")
+	));
+
+	@BeforeEach
+	void givenWrittenElement() {
+		subject.writeToDirectory(testDirectory);
+	}
+
+	@Test
+	void isUpToDateWithWrittenDirectory() {
+		VerificationResult result = subject.verify(testDirectory);
+
+		assertThat(result.isUpToDate(), is(true));
+		assertThat(result, hasToString("up-to-date"));
+	}
+
+	@Test
+	void reportsAddedMissingAndModifiedFiles() throws IOException {
+		Files.write(testDirectory.resolve("a.cpp"), "void A() {}".getBytes());
+		Files.write(testDirectory.resolve("b.cpp"), "int b() { return 42; }".getBytes());
+		Files.delete(testDirectory.resolve("include/c.h"));
+		Files.write(testDirectory.resolve("include/d.h"), "void d();".getBytes());
+
+		VerificationResult result = subject.verify(testDirectory);
+
+		assertThat(result.isUpToDate(), is(false));
+		assertThat(result.getAddedFiles(), contains("include/d.h"));
+		assertThat(result.getMissingFiles(), contains("include/c.h"));
+		assertThat(result.getModifiedFiles(), contains("a.cpp", "b.cpp"));
+	}
+
+	@Test
+	void detectsChangeOfPreviouslyVerifiedFile() throws IOException {
+		Files.setLastModifiedTime(testDirectory.resolve("a.cpp"), OLD_TIME);
+		assertThat(subject.verify(testDirectory).isUpToDate(), is(true));
+
+		Files.write(testDirectory.resolve("a.cpp"), "void A() {}".getBytes());
+
+		assertThat(subject.verify(testDirectory).getModifiedFiles(), contains("a.cpp"));
+	}
+
+	@Test
+	void isUpToDateWithFilesWrittenInOtherCharsets(@TempDir Path otherDirectory) {
+		SourceElement element = SourceElement.ofFiles(Arrays.asList(
+			SourceFile.of("utf16.txt", "caf\u00e9").withCharset(StandardCharsets.UTF_16),
+			SourceFile.of("latin1.txt", "caf\u00e9").withCharset(StandardCharsets.ISO_8859_1)
+		));
+		element.writeToDirectory(otherDirectory);
+
+		assertThat(element.verify(otherDirectory).isUpToDate(), is(true));
+	}
+
+	@Test
+	void reportsAllFilesMissingForMissingDirectory() {
+		VerificationResult result = subject.verify(testDirectory.resolve("missing"));
+
+		assertThat(result.getMissingFiles(), contains("a.cpp", "b.cpp", "include/c.h"));
+		assertThat(result.getAddedFiles(), empty());
+	}
+}
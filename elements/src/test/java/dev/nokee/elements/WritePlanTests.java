@@ -0,0 +1,53 @@
+package dev.nokee.elements;
+
+import dev.nokee.elements.core.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static dev.nokee.commons.hamcrest.gradle.FileSystemMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class WritePlanTests {
+	SourceElement subject = SourceElement.ofFiles(Arrays.asList(
+		SourceFile.of("foo/b.cpp", "void b() {}"),
+		SourceFile.of("a.cpp", "void a() {}"),
+		SourceFile.of("foo/bar/c.cpp", "void c() {}"),
+		SourceFile.of("foo/a.cpp", "void a() {}")
+	));
+
+	@Test
+	void collectsEachDistinctDirectoryParentFirst() {
+		assertThat(WritePlan.of(subject).getDirectories(), contains("foo", "foo/bar"));
+	}
+
+	@Test
+	void sortsEntriesByDirectory() {
+		assertThat(WritePlan.of(subject).getEntries(), contains(
+			hasProperty("path", equalTo("a.cpp")),
+			hasProperty("path", equalTo("foo/a.cpp")),
+			hasProperty("path", equalTo("foo/b.cpp")),
+			hasProperty("path", equalTo("foo/bar/c.cpp"))
+		));
+	}
+
+	@Test
+	void includesNodeLocationsOfFileSystemElements() {
+		WritePlan plan = WritePlan.of(new GradleLayoutElement().applyTo(ProjectElement.ofMain(subject)));
+		assertThat(plan.getDirectories(), contains("src", "src/main", "src/main/cpp", "src/main/cpp/foo", "src/main/cpp/foo/bar"));
+	}
+
+	@Test
+	void canReusePlanForMultipleDirectories(@TempDir Path testDirectory) {
+		WritePlan plan = WritePlan.of(subject);
+		plan.writeToDirectory(testDirectory.resolve("first"));
+		plan.writeToDirectory(testDirectory.resolve("second"));
+
+		assertThat(testDirectory.resolve("first"), hasRelativeDescendants("a.cpp", "foo/a.cpp", "foo/b.cpp", "foo/bar/c.cpp"));
+		assertThat(testDirectory.resolve("second"), hasRelativeDescendants("a.cpp", "foo/a.cpp", "foo/b.cpp", "foo/bar/c.cpp"));
+		assertThat(testDirectory.resolve("second/foo/bar/c.cpp"), aFile(withTextContent(equalTo("void c() {}"))));
+	}
+}
@@ -0,0 +1,102 @@
+package dev.nokee.elements;
+
+import dev.nokee.elements.core.SourceElement;
+import dev.nokee.elements.core.SourceFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+
+class WriteToTarTests {
+	SourceElement element = SourceElement.ofFiles(Arrays.asList(
+		SourceFile.of("dir/b.cpp", "void b() {}"),
+		SourceFile.of("a.cpp", "void a() {}")
+	));
+
+	@Test
+	void writesEntriesInSortedOrder() throws IOException {
+		assertThat(entriesOf(new ByteArrayInputStream(element.asTar("sources.tar").toByteArray())), contains("a.cpp", "dir/", "dir/b.cpp"));
+	}
+
+	@Test
+	void producesSameArchiveForSameElement() {
+		assertThat(element.asTar("sources.tar").toByteArray(), equalTo(element.asTar("other.tar").toByteArray()));
+		assertThat(element.asTarGz("sources.tar.gz").toByteArray(), equalTo(element.asTarGz("other.tar.gz").toByteArray()));
+	}
+
+	@Test
+	void canWriteCompressedArchiveToDirectory(@TempDir Path testDirectory) throws IOException {
+		Path archive = element.asTarGz("dist/sources.tar.gz").writeToDirectory(testDirectory);
+
+		assertThat(archive, equalTo(testDirectory.resolve("dist/sources.tar.gz")));
+		try (InputStream inStream = new GZIPInputStream(Files.newInputStream(archive))) {
+			assertThat(entriesOf(inStream), contains("a.cpp", "dir/", "dir/b.cpp"));
+		}
+	}
+
+	@Test
+	void writesLongPathsUsingExtendedHeader() throws IOException {
+		String path = String.join("/", Collections.nCopies(30, "directory")) + "/c.cpp";
+		SourceElement subject = SourceElement.ofFiles(Collections.singletonList(SourceFile.of(path, "...")));
+
+		assertThat(entriesOf(new ByteArrayInputStream(subject.asTar("sources.tar").toByteArray())), hasItem(path));
+	}
+
+	// Minimal ustar/pax reader, enough to list the entry names
+	private static List<String> entriesOf(InputStream inStream) throws IOException {
+		List<String> result = new ArrayList<>();
+		String paxPath = null;
+		byte[] header = new byte[512];
+		while (readFully(inStream, header) && header[0] != 0) {
+			int size = Integer.parseInt(stringOf(header, 124, 12).trim(), 8);
+			byte[] content = new byte[(size + 511) / 512 * 512];
+			readFully(inStream, content);
+			if (header[156] == 'x') {
+				String record = new String(content, 0, size, StandardCharsets.UTF_8);
+				paxPath = record.substring(record.indexOf("path=") + 5, record.length() - 1);
+			} else if (paxPath != null) {
+				result.add(paxPath);
+				paxPath = null;
+			} else {
+				String prefix = stringOf(header, 345, 155);
+				result.add((prefix.isEmpty() ? "" : prefix + "/") + stringOf(header, 0, 100));
+			}
+		}
+		return result;
+	}
+
+	private static boolean readFully(InputStream inStream, byte[] buffer) throws IOException {
+		int offset = 0;
+		while (offset < buffer.length) {
+			int length = inStream.read(buffer, offset, buffer.length - offset);
+			if (length == -1) {
+				return false;
+			}
+			offset += length;
+		}
+		return true;
+	}
+
+	private static String stringOf(byte[] header, int offset, int length) {
+		int end = offset;
+		while (end < offset + length && header[end] != 0) {
+			end++;
+		}
+		return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+	}
+}
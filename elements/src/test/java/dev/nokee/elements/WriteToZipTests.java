@@ -5,13 +5,24 @@ import dev.nokee.elements.core.SourceFile;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
 
 class WriteToZipTests {
 	@Test
@@ -28,4 +39,37 @@ class WriteToZipTests {
 			subject.writeToDirectory(zipfs.getPath("/"));
 		}
 	}
+
+	SourceElement element = SourceElement.ofFiles(Arrays.asList(
+		SourceFile.of("dir/b.cpp", "void b() {}"),
+		SourceFile.of("a.cpp", "void a() {}")
+	));
+
+	@Test
+	void writesEntriesInSortedOrder() throws IOException {
+		List<String> entries = new ArrayList<>();
+		try (ZipInputStream inStream = new ZipInputStream(new ByteArrayInputStream(element.asZip("sources.zip").toByteArray()))) {
+			ZipEntry entry;
+			while ((entry = inStream.getNextEntry()) != null) {
+				entries.add(entry.getName());
+			}
+		}
+
+		assertThat(entries, contains("a.cpp", "dir/", "dir/b.cpp"));
+	}
+
+	@Test
+	void producesSameArchiveForSameElement() {
+		assertThat(element.asZip("sources.zip").toByteArray(), equalTo(element.asZip("other.zip").toByteArray()));
+	}
+
+	@Test
+	void canWriteArchiveToDirectory(@TempDir Path testDirectory) throws IOException {
+		Path archive = element.asZip("dist/sources.zip").withCompressionLevel(Deflater.NO_COMPRESSION).writeToDirectory(testDirectory);
+
+		assertThat(archive, equalTo(testDirectory.resolve("dist/sources.zip")));
+		try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+			assertThat(zipFile.getEntry("dir/b.cpp").getMethod(), equalTo(ZipEntry.STORED));
+		}
+	}
 }
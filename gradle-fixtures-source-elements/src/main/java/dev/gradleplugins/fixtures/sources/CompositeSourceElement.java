@@ -26,6 +26,7 @@ import java.util.stream.Collectors;
 public final class CompositeSourceElement extends SourceElement implements Iterable<SourceElement> {
 	private final List<SourceElement> elements;
 	private final String sourceSetName;
+	private volatile List<SourceFile> files;
 
 	CompositeSourceElement(List<SourceElement> elements) {
 		this.elements = new ArrayList<>(elements);
@@ -45,13 +46,22 @@ public final class CompositeSourceElement extends SourceElement implements Itera
 		return Collections.unmodifiableList(elements);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * The files are flattened once, on first access, each caller receives its own modifiable copy.
+	 */
 	@Override
 	public List<SourceFile> getFiles() {
-		List<SourceFile> files = new ArrayList<SourceFile>();
-		for (SourceElement element : elements) {
-			files.addAll(element.getFiles());
+		List<SourceFile> result = files;
+		if (result == null) {
+			List<SourceFile> allFiles = new ArrayList<SourceFile>();
+			for (SourceElement element : elements) {
+				allFiles.addAll(element.getFiles());
+			}
+			result = Collections.unmodifiableList(allFiles);
+			files = result;
 		}
-		return files;
+		return new ArrayList<SourceFile>(result);
 	}
 
 	@Override
@@ -21,8 +21,15 @@ import java.util.List;
 import java.util.Set;
 
 public abstract class NativeSourceElement extends SourceElement {
+	private volatile SourceElement delegate;
+
 	private SourceElement delegate() {
-		return SourceElement.ofElements(getHeaders().withSourceSetName(getSourceSetName()), getSources().withSourceSetName(getSourceSetName()));
+		SourceElement result = delegate;
+		if (result == null) {
+			result = SourceElement.ofElements(getHeaders().withSourceSetName(getSourceSetName()), getSources().withSourceSetName(getSourceSetName()));
+			delegate = result;
+		}
+		return result;
 	}
 
 	public SourceElement getHeaders() {
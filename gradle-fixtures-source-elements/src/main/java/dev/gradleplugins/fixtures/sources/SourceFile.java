@@ -35,6 +35,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -48,11 +49,18 @@ public final class SourceFile {
 	private final String path;
 	private final String name;
 	private final String content;
+	private final Charset charset;
+	private volatile byte[] bytes;
 
 	public SourceFile(String path, String name, String content) {
+		this(path, name, content, StandardCharsets.UTF_8);
+	}
+
+	public SourceFile(String path, String name, String content, Charset charset) {
 		this.path = path;
 		this.name = name;
 		this.content = content;
+		this.charset = Objects.requireNonNull(charset, "'charset' must not be null");
 	}
 
 	public String getPath() {
@@ -67,6 +75,23 @@ public final class SourceFile {
 		return content;
 	}
 
+	/**
+	 * {@return the charset used to encode the content of this file, defaults to UTF-8}
+	 */
+	public Charset getCharset() {
+		return charset;
+	}
+
+	// Encoded once and shared across writes
+	private byte[] getBytes() {
+		byte[] result = bytes;
+		if (result == null) {
+			result = content.getBytes(charset);
+			bytes = result;
+		}
+		return result;
+	}
+
 	public Path writeToDirectory(Path base) {
 		String path = Stream.of(this.path, name).filter(it -> !it.isEmpty()).collect(joining(File.separator));
 		final Path file = base.resolve(path);
@@ -82,7 +107,7 @@ public final class SourceFile {
 	public void writeToFile(Path file) {
 		try {
 			Files.createDirectories(file.getParent());
-			Files.write(file, content.getBytes(Charset.defaultCharset()));
+			Files.write(file, getBytes());
 		} catch (IOException ex) {
 			throw new UncheckedIOException(String.format("Unable to create source file at '%s'.", file), ex);
 		}
@@ -109,12 +134,12 @@ public final class SourceFile {
 		if (o == null || getClass() != o.getClass())
 			return false;
 		SourceFile that = (SourceFile) o;
-		return Objects.equals(path, that.path) && Objects.equals(name, that.name) && Objects.equals(content, that.content);
+		return Objects.equals(path, that.path) && Objects.equals(name, that.name) && Objects.equals(content, that.content) && charset.equals(that.charset);
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(path, name, content);
+		return Objects.hash(path, name, content, charset);
 	}
 
 	@Override